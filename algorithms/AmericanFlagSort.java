@@ -0,0 +1,452 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * In-place MSD radix sort, known as American flag sort.
+ * 
+ * Unlike RadixSort, nothing is copied out of the input: items are swapped
+ * directly into their buckets, so the only extra memory is the bucket counts
+ * for each level of recursion. The price is that the sort is not stable.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class AmericanFlagSort
+{
+    /**
+     * Don't make these!
+     */
+    private AmericanFlagSort() {}
+
+    /**
+     * The number of bits in each digit. Uses base 256.
+     */
+    private static final int DIGIT_BITS = 8;
+
+    /**
+     * The number of possible digits.
+     */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /**
+     * Ranges at or below this size are finished with insertion sort.
+     */
+    public static final int INSERTION_SORT_CUTOFF = 32;
+
+    /**
+     * Sorts an array of ints in place.
+     * 
+     * @param data the array to be sorted.
+     */
+    public static void sort(int[] data)
+    {
+        sort(data, 0, data.length);
+    }
+
+    /**
+     * Sorts a range of an array of ints in place.
+     * 
+     * @param data the array to be sorted.
+     * @param from the first index to sort
+     * @param to one past the last index to sort
+     */
+    public static void sort(int[] data, int from, int to)
+    {
+        int levels = Integer.SIZE / DIGIT_BITS;
+        sort(data, from, to, Integer.SIZE - DIGIT_BITS,
+            new int[levels][RADIX + 1], new int[levels][RADIX]);
+    }
+
+    /**
+     * Sorts an array of longs in place.
+     * 
+     * @param data the array to be sorted.
+     */
+    public static void sort(long[] data)
+    {
+        sort(data, 0, data.length);
+    }
+
+    /**
+     * Sorts a range of an array of longs in place.
+     * 
+     * @param data the array to be sorted.
+     * @param from the first index to sort
+     * @param to one past the last index to sort
+     */
+    public static void sort(long[] data, int from, int to)
+    {
+        int levels = Long.SIZE / DIGIT_BITS;
+        sort(data, from, to, Long.SIZE - DIGIT_BITS,
+            new int[levels][RADIX + 1], new int[levels][RADIX]);
+    }
+
+    /**
+     * Sorts an array of byte strings in place.
+     * Bytes are compared as unsigned, and a string that prefixes
+     * another comes first, as in Arrays.compareUnsigned.
+     * 
+     * @param data the array to be sorted.
+     */
+    public static void sort(byte[][] data)
+    {
+        sort(data, 0, data.length, 0);
+    }
+
+    /**
+     * Recursive helper for sorting ints.
+     * Sorts data[lo..hi) assuming the digits above shift are all equal.
+     * 
+     * @param data the array being sorted
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param shift the position of the lowest bit of the digit to distribute on
+     * @param starts bucket boundaries for each level, reused by siblings
+     * @param nexts next free slot in each bucket for each level, reused by siblings
+     */
+    private static void sort(int[] data, int lo, int hi, int shift, int[][] starts,
+        int[][] nexts)
+    {
+        if (hi - lo <= INSERTION_SORT_CUTOFF)
+        {
+            insertionSort(data, lo, hi);
+            return;
+        }
+        int[] start = starts[shift / DIGIT_BITS];
+        Arrays.fill(start, 0);
+        for (int i = lo; i < hi; i++)
+        {
+            start[digit(data[i], shift) + 1]++;
+        }
+        if (!toBucketStarts(start, lo, hi))
+        {
+            // Every item has the same digit here.
+            if (shift > 0)
+            {
+                sort(data, lo, hi, shift - DIGIT_BITS, starts, nexts);
+            }
+            return;
+        }
+        int[] next = nexts[shift / DIGIT_BITS];
+        System.arraycopy(start, 0, next, 0, RADIX);
+        for (int r = 0; r < RADIX; r++)
+        {
+            // Place items until this bucket is full. Each swap puts one item home.
+            while (next[r] < start[r + 1])
+            {
+                int item = data[next[r]];
+                int d = digit(item, shift);
+                while (d != r)
+                {
+                    int displaced = data[next[d]];
+                    data[next[d]++] = item;
+                    item = displaced;
+                    d = digit(item, shift);
+                }
+                data[next[r]++] = item;
+            }
+        }
+        if (shift > 0)
+        {
+            for (int r = 0; r < RADIX; r++)
+            {
+                if (start[r + 1] - start[r] > 1)
+                {
+                    sort(data, start[r], start[r + 1], shift - DIGIT_BITS, starts, nexts);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recursive helper for sorting longs.
+     * Sorts data[lo..hi) assuming the digits above shift are all equal.
+     * 
+     * @param data the array being sorted
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param shift the position of the lowest bit of the digit to distribute on
+     * @param starts bucket boundaries for each level, reused by siblings
+     * @param nexts next free slot in each bucket for each level, reused by siblings
+     */
+    private static void sort(long[] data, int lo, int hi, int shift, int[][] starts,
+        int[][] nexts)
+    {
+        if (hi - lo <= INSERTION_SORT_CUTOFF)
+        {
+            insertionSort(data, lo, hi);
+            return;
+        }
+        int[] start = starts[shift / DIGIT_BITS];
+        Arrays.fill(start, 0);
+        for (int i = lo; i < hi; i++)
+        {
+            start[digit(data[i], shift) + 1]++;
+        }
+        if (!toBucketStarts(start, lo, hi))
+        {
+            // Every item has the same digit here.
+            if (shift > 0)
+            {
+                sort(data, lo, hi, shift - DIGIT_BITS, starts, nexts);
+            }
+            return;
+        }
+        int[] next = nexts[shift / DIGIT_BITS];
+        System.arraycopy(start, 0, next, 0, RADIX);
+        for (int r = 0; r < RADIX; r++)
+        {
+            // Place items until this bucket is full. Each swap puts one item home.
+            while (next[r] < start[r + 1])
+            {
+                long item = data[next[r]];
+                int d = digit(item, shift);
+                while (d != r)
+                {
+                    long displaced = data[next[d]];
+                    data[next[d]++] = item;
+                    item = displaced;
+                    d = digit(item, shift);
+                }
+                data[next[r]++] = item;
+            }
+        }
+        if (shift > 0)
+        {
+            for (int r = 0; r < RADIX; r++)
+            {
+                if (start[r + 1] - start[r] > 1)
+                {
+                    sort(data, start[r], start[r + 1], shift - DIGIT_BITS, starts, nexts);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recursive helper for sorting byte strings.
+     * Sorts data[lo..hi) assuming the strings share their first d bytes.
+     * Only the smaller buckets are sorted recursively, so the recursion is
+     * at most log n deep.
+     * Bucket 0 holds strings that have ended, bucket b + 1 holds byte b.
+     * 
+     * @param data the array being sorted
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param d the byte position to distribute on
+     */
+    private static void sort(byte[][] data, int lo, int hi, int d)
+    {
+        int[] start = new int[RADIX + 2];
+        while (hi - lo > INSERTION_SORT_CUTOFF)
+        {
+            Arrays.fill(start, 0);
+            for (int i = lo; i < hi; i++)
+            {
+                start[byteKey(data[i], d) + 1]++;
+            }
+            if (start[1] == hi - lo)
+            {
+                // Every string has ended, so they are all equal.
+                return;
+            }
+            if (!toBucketStarts(start, lo, hi))
+            {
+                // A shared byte, so there is nothing to distribute.
+                d++;
+                continue;
+            }
+            int[] next = start.clone();
+            for (int r = 0; r <= RADIX; r++)
+            {
+                // Place items until this bucket is full. Each swap puts one item home.
+                while (next[r] < start[r + 1])
+                {
+                    byte[] item = data[next[r]];
+                    int b = byteKey(item, d);
+                    while (b != r)
+                    {
+                        byte[] displaced = data[next[b]];
+                        data[next[b]++] = item;
+                        item = displaced;
+                        b = byteKey(item, d);
+                    }
+                    data[next[r]++] = item;
+                }
+            }
+            // Bucket 0 has ended and is already in place. Every other bucket but
+            // the largest is sorted by a recursive call, and the largest by this loop.
+            // A recursive call gets at most half the strings, so the recursion is
+            // never more than log n deep, however long the strings.
+            int largest = 1;
+            for (int r = 2; r <= RADIX; r++)
+            {
+                if (start[r + 1] - start[r] > start[largest + 1] - start[largest])
+                {
+                    largest = r;
+                }
+            }
+            for (int r = 1; r <= RADIX; r++)
+            {
+                if (r != largest && start[r + 1] - start[r] > 1)
+                {
+                    sort(data, start[r], start[r + 1], d + 1);
+                }
+            }
+            lo = start[largest];
+            hi = start[largest + 1];
+            d++;
+        }
+        insertionSort(data, lo, hi, d);
+    }
+
+    /**
+     * Turns bucket sizes, shifted up by one, into bucket start positions.
+     * Afterwards counts[r] is the start of bucket r and counts[r + 1] is its end.
+     * 
+     * @param counts counts[r + 1] holds the size of bucket r
+     * @param lo the start of the range being sorted
+     * @param hi the end of the range being sorted
+     * @return false if a single bucket holds the whole range
+     */
+    private static boolean toBucketStarts(int[] counts, int lo, int hi)
+    {
+        boolean split = true;
+        counts[0] = lo;
+        for (int r = 1; r < counts.length; r++)
+        {
+            if (counts[r] == hi - lo)
+            {
+                split = false;
+            }
+            counts[r] += counts[r - 1];
+        }
+        return split;
+    }
+
+    /**
+     * Gets a digit of an int, with the sign bit flipped so negatives come first.
+     * 
+     * @param item the int to read from
+     * @param shift the position of the lowest bit of the digit
+     * @return the digit
+     */
+    private static int digit(int item, int shift)
+    {
+        return ((item ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Gets a digit of a long, with the sign bit flipped so negatives come first.
+     * 
+     * @param item the long to read from
+     * @param shift the position of the lowest bit of the digit
+     * @return the digit
+     */
+    private static int digit(long item, int shift)
+    {
+        return (int) ((item ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Gets the bucket of the byte at a position in a byte string.
+     * 
+     * @param item the byte string to read from
+     * @param d the position of the byte
+     * @return 0 if the string has ended, otherwise the unsigned byte plus one
+     */
+    private static int byteKey(byte[] item, int d)
+    {
+        return d < item.length ? (item[d] & 0xFF) + 1 : 0;
+    }
+
+    /**
+     * Insertion sort of data[lo..hi).
+     * 
+     * @param data the array being sorted
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     */
+    private static void insertionSort(int[] data, int lo, int hi)
+    {
+        for (int i = lo + 1; i < hi; i++)
+        {
+            int item = data[i];
+            int j = i;
+            while (j > lo && item < data[j - 1])
+            {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = item;
+        }
+    }
+
+    /**
+     * Insertion sort of data[lo..hi).
+     * 
+     * @param data the array being sorted
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     */
+    private static void insertionSort(long[] data, int lo, int hi)
+    {
+        for (int i = lo + 1; i < hi; i++)
+        {
+            long item = data[i];
+            int j = i;
+            while (j > lo && item < data[j - 1])
+            {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = item;
+        }
+    }
+
+    /**
+     * Insertion sort of data[lo..hi) for byte strings sharing their first d bytes.
+     * 
+     * @param data the array being sorted
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param d the first byte position that may differ
+     */
+    private static void insertionSort(byte[][] data, int lo, int hi, int d)
+    {
+        for (int i = lo + 1; i < hi; i++)
+        {
+            byte[] item = data[i];
+            int j = i;
+            while (j > lo && compareFrom(item, data[j - 1], d) < 0)
+            {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = item;
+        }
+    }
+
+    /**
+     * Compares two byte strings as unsigned, starting from a given position.
+     * 
+     * @param a the first byte string
+     * @param b the second byte string
+     * @param d the position to start comparing from
+     * @return negative, zero, or positive as a is less than, equal to, or greater than b
+     */
+    private static int compareFrom(byte[] a, byte[] b, int d)
+    {
+        int length = Math.min(a.length, b.length);
+        for (int i = d; i < length; i++)
+        {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+}
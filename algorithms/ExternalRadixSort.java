@@ -0,0 +1,425 @@
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Radix sort for streams of longs too large to hold in memory.
+ * 
+ * Input and output are big-endian longs, as written by DataOutputStream.writeLong.
+ * If the input fits in memory it is sorted there. Otherwise every long is
+ * written to one of 256 bucket files by its top byte, and the buckets are
+ * sorted in memory and written out in order. A bucket still too large is
+ * partitioned again on the highest byte its longs differ in. Which bits differ
+ * is tracked while the bucket is written, so keys sharing several top bytes,
+ * like timestamps, are not rewritten once per shared byte, and a bucket of
+ * identical keys is copied straight to the output.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class ExternalRadixSort
+{
+    /**
+     * The size in bytes of each I/O buffer when none is provided.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of longs to sort in memory when no limit is provided.
+     */
+    public static final int DEFAULT_MAX_IN_MEMORY = 1 << 24;
+
+    /**
+     * The number of bits in each digit. Uses base 256.
+     */
+    private static final int DIGIT_BITS = 8;
+
+    /**
+     * The number of possible digits, and so the number of bucket files.
+     */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /**
+     * The directory to write bucket files to.
+     */
+    private final Path tempDir;
+
+    /**
+     * The size in bytes of each I/O buffer.
+     * There is one buffer per bucket while partitioning.
+     */
+    private final int bufferSize;
+
+    /**
+     * The most longs to hold in memory for sorting at once.
+     */
+    private final int maxInMemory;
+
+    /**
+     * Creates a new sorter using the system temp directory and default sizes.
+     */
+    public ExternalRadixSort()
+    {
+        this(Paths.get(System.getProperty("java.io.tmpdir")), DEFAULT_BUFFER_SIZE,
+            DEFAULT_MAX_IN_MEMORY);
+    }
+
+    /**
+     * Creates a new sorter.
+     * Partitioning uses about 256 * bufferSize bytes,
+     * and sorting uses about 8 * maxInMemory bytes.
+     * 
+     * @param tempDir the directory to write bucket files to
+     * @param bufferSize the size in bytes of each I/O buffer, a multiple of 8
+     * @param maxInMemory the most longs to hold in memory for sorting at once
+     * @throws IllegalArgumentException if bufferSize is not a positive multiple of 8
+     *         or maxInMemory is not positive
+     */
+    public ExternalRadixSort(Path tempDir, int bufferSize, int maxInMemory)
+    {
+        if (bufferSize < Long.BYTES || bufferSize % Long.BYTES != 0)
+        {
+            throw new IllegalArgumentException("Buffer size must be a positive multiple of 8");
+        }
+        if (maxInMemory < 1)
+        {
+            throw new IllegalArgumentException("Must be able to hold at least one long");
+        }
+        this.tempDir = tempDir;
+        this.bufferSize = bufferSize;
+        this.maxInMemory = maxInMemory;
+    }
+
+    /**
+     * Sorts the longs in one file into another.
+     * 
+     * @param input the file to read
+     * @param output the file to write, replaced if it exists
+     * @throws IOException if either file cannot be used, or the input
+     *         is not a whole number of longs
+     */
+    public void sort(Path input, Path output) throws IOException
+    {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+            FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            sort(in, out);
+        }
+    }
+
+    /**
+     * Sorts the longs read from one channel into another.
+     * Neither channel is closed.
+     * 
+     * @param in the channel to read longs from until it ends
+     * @param out the channel to write the sorted longs to
+     * @throws IOException if either channel fails, or the input
+     *         is not a whole number of longs
+     */
+    public void sort(ReadableByteChannel in, WritableByteChannel out) throws IOException
+    {
+        LongReader reader = new LongReader(in);
+        ByteBuffer outBuffer = ByteBuffer.allocateDirect(bufferSize);
+        long[] data = new long[Math.min(bufferSize / Long.BYTES, maxInMemory)];
+        int count = 0;
+        while (true)
+        {
+            if (count == data.length)
+            {
+                if (count == maxInMemory)
+                {
+                    break;
+                }
+                long[] newData = new long[(int) Math.min(count * 2L, maxInMemory)];
+                System.arraycopy(data, 0, newData, 0, count);
+                data = newData;
+            }
+            int read = reader.read(data, count, data.length - count);
+            if (read < 0)
+            {
+                AmericanFlagSort.sort(data, 0, count);
+                write(data, count, out, outBuffer);
+                return;
+            }
+            count += read;
+        }
+        partition(data, count, reader, Long.SIZE - DIGIT_BITS, out, outBuffer);
+    }
+
+    /**
+     * Splits longs into bucket files by one byte, then sorts each bucket into out.
+     * All the longs handled share the bytes above shift.
+     * 
+     * @param data longs already read, and space to read more into
+     * @param count the number of longs at the start of data to include
+     * @param rest the longs still to be read
+     * @param shift the position of the lowest bit of the byte to split on
+     * @param out the channel to write the sorted longs to
+     * @param outBuffer the buffer to write to out through
+     * @throws IOException if a bucket file or channel fails
+     */
+    private void partition(long[] data, int count, LongReader rest, int shift,
+        WritableByteChannel out, ByteBuffer outBuffer) throws IOException
+    {
+        Path[] files = new Path[RADIX];
+        long[] diffs = new long[RADIX];
+        try
+        {
+            writeBuckets(data, count, rest, shift, files, diffs);
+            for (int r = 0; r < RADIX; r++)
+            {
+                if (files[r] != null)
+                {
+                    sortBucket(files[r], diffs[r], data, out, outBuffer);
+                    Files.delete(files[r]);
+                }
+            }
+        }
+        finally
+        {
+            for (Path file : files)
+            {
+                if (file != null)
+                {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes longs to the bucket file for their byte at shift.
+     * Files are only created for buckets that receive a long.
+     * 
+     * @param data longs already read, and space to read more into
+     * @param count the number of longs at the start of data to include
+     * @param rest the longs still to be read
+     * @param shift the position of the lowest bit of the byte to split on
+     * @param files filled in with the file for each bucket
+     * @param diffs filled in with the bits that differ between the longs in each bucket
+     * @throws IOException if a bucket file fails
+     */
+    private void writeBuckets(long[] data, int count, LongReader rest, int shift, Path[] files,
+        long[] diffs) throws IOException
+    {
+        FileChannel[] channels = new FileChannel[RADIX];
+        ByteBuffer[] buffers = new ByteBuffer[RADIX];
+        long[] firsts = new long[RADIX];
+        try
+        {
+            do
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    int r = (int) ((data[i] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+                    if (buffers[r] == null)
+                    {
+                        files[r] = Files.createTempFile(tempDir, "radix", ".bucket");
+                        channels[r] = FileChannel.open(files[r], StandardOpenOption.WRITE);
+                        buffers[r] = ByteBuffer.allocateDirect(bufferSize);
+                        firsts[r] = data[i];
+                    }
+                    else if (!buffers[r].hasRemaining())
+                    {
+                        drain(buffers[r], channels[r]);
+                    }
+                    buffers[r].putLong(data[i]);
+                    diffs[r] |= data[i] ^ firsts[r];
+                }
+                count = rest.read(data, 0, data.length);
+            }
+            while (count >= 0);
+            for (int r = 0; r < RADIX; r++)
+            {
+                if (buffers[r] != null)
+                {
+                    drain(buffers[r], channels[r]);
+                }
+            }
+        }
+        finally
+        {
+            for (FileChannel channel : channels)
+            {
+                if (channel != null)
+                {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts one bucket file into out.
+     * 
+     * @param file the bucket file
+     * @param diff the bits that differ between the longs in the bucket
+     * @param data space to sort in, replaced if too small
+     * @param out the channel to write the sorted longs to
+     * @param outBuffer the buffer to write to out through
+     * @throws IOException if the bucket file or channel fails
+     */
+    private void sortBucket(Path file, long diff, long[] data, WritableByteChannel out,
+        ByteBuffer outBuffer) throws IOException
+    {
+        try (FileChannel bucket = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = bucket.size() / Long.BYTES;
+            if (diff == 0)
+            {
+                // No bits differ, so the longs are all equal.
+                for (long done = 0; done < bucket.size(); )
+                {
+                    done += bucket.transferTo(done, bucket.size() - done, out);
+                }
+            }
+            else if (size <= maxInMemory)
+            {
+                long[] sortSpace = size <= data.length ? data : new long[(int) size];
+                LongReader reader = new LongReader(bucket);
+                int count = 0;
+                while (count < size)
+                {
+                    count += reader.read(sortSpace, count, (int) size - count);
+                }
+                AmericanFlagSort.sort(sortSpace, 0, count);
+                write(sortSpace, count, out, outBuffer);
+            }
+            else
+            {
+                // Split on the byte holding the highest differing bit, skipping shared bytes.
+                int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(diff);
+                int shift = highestBit / DIGIT_BITS * DIGIT_BITS;
+                partition(data, 0, new LongReader(bucket), shift, out, outBuffer);
+            }
+        }
+    }
+
+    /**
+     * Writes longs to a channel.
+     * 
+     * @param data the longs to write
+     * @param count the number of longs at the start of data to write
+     * @param out the channel to write to
+     * @param buffer the buffer to write through, empty
+     * @throws IOException if the channel fails
+     */
+    private static void write(long[] data, int count, WritableByteChannel out, ByteBuffer buffer)
+        throws IOException
+    {
+        for (int i = 0; i < count; )
+        {
+            int length = Math.min(count - i, buffer.capacity() / Long.BYTES);
+            buffer.asLongBuffer().put(data, i, length);
+            buffer.position(length * Long.BYTES);
+            drain(buffer, out);
+            i += length;
+        }
+    }
+
+    /**
+     * Writes everything in a buffer to a channel and clears the buffer.
+     * 
+     * @param buffer the buffer to write, in write mode
+     * @param out the channel to write to
+     * @throws IOException if the channel fails
+     */
+    private static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads big-endian longs from a channel through a buffer.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private class LongReader
+    {
+        /**
+         * The channel to read from.
+         */
+        private final ReadableByteChannel in;
+
+        /**
+         * Bytes read from the channel but not yet returned, in read mode.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Whether the channel has ended.
+         */
+        private boolean ended;
+
+        /**
+         * Creates a new reader for a channel.
+         * 
+         * @param in the channel to read from
+         */
+        public LongReader(ReadableByteChannel in)
+        {
+            this.in = in;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+            this.buffer.flip();
+        }
+
+        /**
+         * Reads up to length longs into an array.
+         * 
+         * @param dest the array to read into
+         * @param offset the index in dest of the first long read
+         * @param length the most longs to read
+         * @return the number of longs read, or -1 if the channel has ended
+         * @throws IOException if the channel fails or ends partway through a long
+         */
+        public int read(long[] dest, int offset, int length) throws IOException
+        {
+            if (buffer.remaining() < Long.BYTES)
+            {
+                fill();
+                if (!buffer.hasRemaining())
+                {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            return count;
+        }
+
+        /**
+         * Reads from the channel until the buffer is full or the channel ends.
+         * 
+         * @throws IOException if the channel fails or ends partway through a long
+         */
+        private void fill() throws IOException
+        {
+            buffer.compact();
+            while (!ended && buffer.hasRemaining())
+            {
+                ended = in.read(buffer) < 0;
+            }
+            buffer.flip();
+            if (ended && buffer.remaining() % Long.BYTES != 0)
+            {
+                throw new IOException("Input is not a whole number of longs");
+            }
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Finds items by rank without sorting everything, using radix select.
+ * 
+ * Each pass counts one byte of every remaining item, then keeps only the
+ * bucket holding the wanted rank. Items are copied only when a pass narrows
+ * them down, so the input is never modified and memory stays proportional to
+ * the surviving bucket. Ranks start at 0 for the smallest item.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class RadixSelect
+{
+    /**
+     * Don't make these!
+     */
+    private RadixSelect() {}
+
+    /**
+     * The number of bits in each digit. Uses base 256.
+     */
+    private static final int DIGIT_BITS = 8;
+
+    /**
+     * The number of possible digits.
+     */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /**
+     * At or below this many remaining items, they are simply sorted.
+     */
+    private static final int SORT_CUTOFF = 32;
+
+    /**
+     * Finds the item that would be at index k if the array were sorted.
+     * 
+     * @param data the items to search
+     * @param k the rank of the item to find
+     * @return the kth smallest item
+     * @throws IndexOutOfBoundsException if k is not a valid index of data
+     */
+    public static int kthSmallest(int[] data, int k)
+    {
+        Objects.checkIndex(k, data.length);
+        int[] results = new int[1];
+        select(data, data.length, Integer.SIZE - DIGIT_BITS, new int[] {k}, 0, 1, 0, results);
+        return results[0];
+    }
+
+    /**
+     * Finds the item that would be at index k if the array were sorted.
+     * 
+     * @param data the items to search
+     * @param k the rank of the item to find
+     * @return the kth smallest item
+     * @throws IndexOutOfBoundsException if k is not a valid index of data
+     */
+    public static long kthSmallest(long[] data, int k)
+    {
+        Objects.checkIndex(k, data.length);
+        long[] results = new long[1];
+        select(data, data.length, Long.SIZE - DIGIT_BITS, new int[] {k}, 0, 1, 0, results);
+        return results[0];
+    }
+
+    /**
+     * Finds the k smallest items.
+     * 
+     * @param data the items to search
+     * @param k the number of items to find
+     * @return the k smallest items, in ascending order
+     * @throws IllegalArgumentException if k is negative or more than data.length
+     */
+    public static int[] topK(int[] data, int k)
+    {
+        checkCount(k, data.length);
+        int[] result = new int[k];
+        if (k == 0)
+        {
+            return result;
+        }
+        int threshold = kthSmallest(data, k - 1);
+        int count = 0;
+        for (int item : data)
+        {
+            if (item < threshold)
+            {
+                result[count++] = item;
+            }
+        }
+        Arrays.fill(result, count, k, threshold);
+        AmericanFlagSort.sort(result, 0, count);
+        return result;
+    }
+
+    /**
+     * Finds the k smallest items.
+     * 
+     * @param data the items to search
+     * @param k the number of items to find
+     * @return the k smallest items, in ascending order
+     * @throws IllegalArgumentException if k is negative or more than data.length
+     */
+    public static long[] topK(long[] data, int k)
+    {
+        checkCount(k, data.length);
+        long[] result = new long[k];
+        if (k == 0)
+        {
+            return result;
+        }
+        long threshold = kthSmallest(data, k - 1);
+        int count = 0;
+        for (long item : data)
+        {
+            if (item < threshold)
+            {
+                result[count++] = item;
+            }
+        }
+        Arrays.fill(result, count, k, threshold);
+        AmericanFlagSort.sort(result, 0, count);
+        return result;
+    }
+
+    /**
+     * Finds several quantiles at once, by the nearest-rank method.
+     * Quantile p is the smallest item with at least p of the items at or below it.
+     * Ranks that land in the same bucket share their passes.
+     * 
+     * @param data the items to search
+     * @param quantiles each between 0 and 1, such as 0.5 for the median or 0.99 for p99
+     * @return the item at each quantile, in the order the quantiles were given
+     * @throws IllegalArgumentException if data is empty or a quantile is outside [0, 1]
+     */
+    public static int[] quantiles(int[] data, double... quantiles)
+    {
+        int[] ranks = ranks(data.length, quantiles);
+        int[] order = RadixSort.argsort(ranks);
+        int[] sortedRanks = new int[ranks.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            sortedRanks[i] = ranks[order[i]];
+        }
+        int[] sortedResults = new int[ranks.length];
+        select(data, data.length, Integer.SIZE - DIGIT_BITS, sortedRanks, 0, ranks.length, 0,
+            sortedResults);
+        int[] results = new int[ranks.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            results[order[i]] = sortedResults[i];
+        }
+        return results;
+    }
+
+    /**
+     * Finds several quantiles at once, by the nearest-rank method.
+     * Quantile p is the smallest item with at least p of the items at or below it.
+     * Ranks that land in the same bucket share their passes.
+     * 
+     * @param data the items to search
+     * @param quantiles each between 0 and 1, such as 0.5 for the median or 0.99 for p99
+     * @return the item at each quantile, in the order the quantiles were given
+     * @throws IllegalArgumentException if data is empty or a quantile is outside [0, 1]
+     */
+    public static long[] quantiles(long[] data, double... quantiles)
+    {
+        int[] ranks = ranks(data.length, quantiles);
+        int[] order = RadixSort.argsort(ranks);
+        int[] sortedRanks = new int[ranks.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            sortedRanks[i] = ranks[order[i]];
+        }
+        long[] sortedResults = new long[ranks.length];
+        select(data, data.length, Long.SIZE - DIGIT_BITS, sortedRanks, 0, ranks.length, 0,
+            sortedResults);
+        long[] results = new long[ranks.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            results[order[i]] = sortedResults[i];
+        }
+        return results;
+    }
+
+    /**
+     * Recursive helper for selecting ints.
+     * Finds the items at ranks[from..to) among items[0..count),
+     * which share every digit above shift.
+     * 
+     * @param items the remaining items, never modified
+     * @param count the number of remaining items at the start of items
+     * @param shift the position of the lowest bit of the digit to count
+     * @param ranks the ranks to find, in ascending order
+     * @param from the first rank to find in this call
+     * @param to one past the last rank to find in this call
+     * @param base the rank of the smallest remaining item
+     * @param results filled in with the item at each rank
+     */
+    private static void select(int[] items, int count, int shift, int[] ranks, int from, int to,
+        int base, int[] results)
+    {
+        if (count <= SORT_CUTOFF)
+        {
+            int[] sorted = Arrays.copyOf(items, count);
+            AmericanFlagSort.sort(sorted);
+            for (int i = from; i < to; i++)
+            {
+                results[i] = sorted[ranks[i] - base];
+            }
+            return;
+        }
+        int[] counts = new int[RADIX];
+        for (int i = 0; i < count; i++)
+        {
+            counts[digit(items[i], shift)]++;
+        }
+        for (int r = 0, start = base; from < to; start += counts[r++])
+        {
+            int end = start + counts[r];
+            int groupEnd = from;
+            while (groupEnd < to && ranks[groupEnd] < end)
+            {
+                groupEnd++;
+            }
+            if (groupEnd == from)
+            {
+                continue;
+            }
+            if (shift == 0)
+            {
+                // Every digit is shared, so the bucket holds copies of one item.
+                int i = 0;
+                while (digit(items[i], shift) != r)
+                {
+                    i++;
+                }
+                Arrays.fill(results, from, groupEnd, items[i]);
+            }
+            else if (counts[r] == count)
+            {
+                // Nothing was narrowed down, so don't copy.
+                select(items, count, shift - DIGIT_BITS, ranks, from, groupEnd, start, results);
+            }
+            else
+            {
+                int[] bucket = new int[counts[r]];
+                for (int i = 0, j = 0; j < bucket.length; i++)
+                {
+                    if (digit(items[i], shift) == r)
+                    {
+                        bucket[j++] = items[i];
+                    }
+                }
+                select(bucket, bucket.length, shift - DIGIT_BITS, ranks, from, groupEnd, start,
+                    results);
+            }
+            from = groupEnd;
+        }
+    }
+
+    /**
+     * Recursive helper for selecting longs.
+     * Finds the items at ranks[from..to) among items[0..count),
+     * which share every digit above shift.
+     * 
+     * @param items the remaining items, never modified
+     * @param count the number of remaining items at the start of items
+     * @param shift the position of the lowest bit of the digit to count
+     * @param ranks the ranks to find, in ascending order
+     * @param from the first rank to find in this call
+     * @param to one past the last rank to find in this call
+     * @param base the rank of the smallest remaining item
+     * @param results filled in with the item at each rank
+     */
+    private static void select(long[] items, int count, int shift, int[] ranks, int from, int to,
+        int base, long[] results)
+    {
+        if (count <= SORT_CUTOFF)
+        {
+            long[] sorted = Arrays.copyOf(items, count);
+            AmericanFlagSort.sort(sorted);
+            for (int i = from; i < to; i++)
+            {
+                results[i] = sorted[ranks[i] - base];
+            }
+            return;
+        }
+        int[] counts = new int[RADIX];
+        for (int i = 0; i < count; i++)
+        {
+            counts[digit(items[i], shift)]++;
+        }
+        for (int r = 0, start = base; from < to; start += counts[r++])
+        {
+            int end = start + counts[r];
+            int groupEnd = from;
+            while (groupEnd < to && ranks[groupEnd] < end)
+            {
+                groupEnd++;
+            }
+            if (groupEnd == from)
+            {
+                continue;
+            }
+            if (shift == 0)
+            {
+                // Every digit is shared, so the bucket holds copies of one item.
+                int i = 0;
+                while (digit(items[i], shift) != r)
+                {
+                    i++;
+                }
+                Arrays.fill(results, from, groupEnd, items[i]);
+            }
+            else if (counts[r] == count)
+            {
+                // Nothing was narrowed down, so don't copy.
+                select(items, count, shift - DIGIT_BITS, ranks, from, groupEnd, start, results);
+            }
+            else
+            {
+                long[] bucket = new long[counts[r]];
+                for (int i = 0, j = 0; j < bucket.length; i++)
+                {
+                    if (digit(items[i], shift) == r)
+                    {
+                        bucket[j++] = items[i];
+                    }
+                }
+                select(bucket, bucket.length, shift - DIGIT_BITS, ranks, from, groupEnd, start,
+                    results);
+            }
+            from = groupEnd;
+        }
+    }
+
+    /**
+     * Converts quantiles to ranks by the nearest-rank method.
+     * 
+     * @param length the number of items
+     * @param quantiles each between 0 and 1
+     * @return the rank for each quantile
+     * @throws IllegalArgumentException if length is 0 or a quantile is outside [0, 1]
+     */
+    private static int[] ranks(int length, double[] quantiles)
+    {
+        if (length == 0)
+        {
+            throw new IllegalArgumentException("No items to take quantiles of");
+        }
+        int[] ranks = new int[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++)
+        {
+            if (!(quantiles[i] >= 0 && quantiles[i] <= 1))
+            {
+                throw new IllegalArgumentException(
+                    "Quantile must be between 0 and 1: " + quantiles[i]);
+            }
+            ranks[i] = Math.max((int) Math.ceil(quantiles[i] * length) - 1, 0);
+        }
+        return ranks;
+    }
+
+    /**
+     * Checks that a number of items can be taken from an array.
+     * 
+     * @param k the number of items wanted
+     * @param length the number of items available
+     * @throws IllegalArgumentException if k is negative or more than length
+     */
+    private static void checkCount(int k, int length)
+    {
+        if (k < 0 || k > length)
+        {
+            throw new IllegalArgumentException("Cannot take " + k + " of " + length + " items");
+        }
+    }
+
+    /**
+     * Gets a digit of an int, with the sign bit flipped so negatives come first.
+     * 
+     * @param item the int to read from
+     * @param shift the position of the lowest bit of the digit
+     * @return the digit
+     */
+    private static int digit(int item, int shift)
+    {
+        return ((item ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Gets a digit of a long, with the sign bit flipped so negatives come first.
+     * 
+     * @param item the long to read from
+     * @param shift the position of the lowest bit of the digit
+     * @return the digit
+     */
+    private static int digit(long item, int shift)
+    {
+        return (int) ((item ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+}
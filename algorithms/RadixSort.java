@@ -1,12 +1,18 @@
 package algorithms;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import storage.ManualLinkedListQueue;
-import storage.ArrayQueue;
 
 /**
- * Two variations of radix sort.
+ * Variations of radix sort.
+ * These sorts are stable but copy their input. For large inputs where
+ * memory matters more than stability, see AmericanFlagSort.
+ * When unsure which sort suits some data, the sort methods will pick one.
  * 
  * @author Willow Sapphire
  * @version 04/05/2024
@@ -26,9 +32,50 @@ public class RadixSort
     /**
      * Number of valid characters for alphabetical sort.
      * All letters (case doesn't matter) and a ` character.
+     * 
+     * @deprecated alphabeticalRadixSort now accepts any character,
+     *             so there is no fixed number of them.
      */
+    @Deprecated
     public static final int NUM_CHARS = 27;
 
+    /**
+     * Ranges at or below this size are finished with insertion sort.
+     */
+    public static final int INSERTION_SORT_CUTOFF = 16;
+
+    /**
+     * The number of bits in each digit of the key sorts. Uses base 256.
+     */
+    private static final int KEY_DIGIT_BITS = 8;
+
+    /**
+     * The number of possible digits in the key sorts.
+     */
+    private static final int KEY_RADIX = 1 << KEY_DIGIT_BITS;
+
+    /**
+     * Data with fewer than one descent per this many items counts as nearly sorted.
+     */
+    private static final int NEARLY_SORTED_RATIO = 64;
+
+    /**
+     * The largest key range that counting sort will allocate counts for.
+     */
+    private static final int MAX_COUNTING_RANGE = 1 << 24;
+
+    /**
+     * The number of adjacent pairs chooseStrategy reads from an array of strings.
+     */
+    private static final int STRING_SAMPLE_PAIRS = 512;
+
+    /**
+     * Strings whose neighbours share this many leading chars on average are
+     * compared rather than radix sorted. Measured crossover for 200K strings.
+     * The MSD sort also compares any bucket whose strings share this many.
+     */
+    private static final int SHARED_PREFIX_LIMIT = 96;
+
     /**
      * Sorts a list of integers using radix sort.
      * 
@@ -67,110 +114,1070 @@ public class RadixSort
     }
 
     /**
-     * Sorts a list of integers using radix sort.
+     * Sorts a list of strings alphabetically, ignoring case.
+     * Shorter strings come before longer strings that they prefix.
+     * Strings that differ only in case keep their original order.
      * 
      * @param data the list to be sorted.
      */
-    @SuppressWarnings("unchecked")
     public static void alphabeticalRadixSort(List<String> data)
     {
-        int mostChars = getMostCharacters(data);
-        ArrayQueue<String> result = new ArrayQueue<>(data.size());
-        for (String w : data)
+        msdRadixSort(data, true);
+    }
+
+    /**
+     * Sorts a list of strings by their chars using MSD radix sort.
+     * 
+     * @param data the list to be sorted.
+     */
+    public static void msdRadixSort(List<String> data)
+    {
+        msdRadixSort(data, false);
+    }
+
+    /**
+     * Sorts a list of strings by their chars using MSD radix sort.
+     * The sort is stable.
+     * 
+     * @param data the list to be sorted.
+     * @param ignoreCase true to order the strings as compareToIgnoreCase does
+     */
+    public static void msdRadixSort(List<String> data, boolean ignoreCase)
+    {
+        String[] words = data.toArray(new String[0]);
+        msdRadixSort(words, ignoreCase);
+        for (int i = 0; i < words.length; i++)
+        {
+            data.set(i, words[i]);
+        }
+    }
+
+    /**
+     * Sorts an array of strings by their chars using MSD radix sort.
+     * The sort is stable.
+     * 
+     * @param data the array to be sorted.
+     * @param ignoreCase true to order the strings as compareToIgnoreCase does
+     */
+    public static void msdRadixSort(String[] data, boolean ignoreCase)
+    {
+        applyPermutation(argsort(data, ignoreCase), data);
+    }
+
+    /**
+     * Finds the order that would sort an array of ints, without moving them.
+     * 
+     * @param keys the keys to sort by
+     * @return perm such that keys[perm[0]], keys[perm[1]], ... is sorted,
+     *         with equal keys in their original order
+     */
+    public static int[] argsort(int[] keys)
+    {
+        long[] sortKeys = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            // Unsigned and zero-extended, so the upper four digits are skipped.
+            sortKeys[i] = (keys[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        }
+        return argsortUnsigned(sortKeys);
+    }
+
+    /**
+     * Finds the order that would sort an array of longs, without moving them.
+     * 
+     * @param keys the keys to sort by
+     * @return perm such that keys[perm[0]], keys[perm[1]], ... is sorted,
+     *         with equal keys in their original order
+     */
+    public static int[] argsort(long[] keys)
+    {
+        long[] sortKeys = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
         {
-            result.enqueue(pad(w, mostChars));
+            sortKeys[i] = keys[i] ^ Long.MIN_VALUE;
         }
-        ArrayQueue<String>[] buckets = new ArrayQueue[NUM_CHARS];
-        for (int i = 0; i < NUM_CHARS; i++)
+        return argsortUnsigned(sortKeys);
+    }
+
+    /**
+     * Finds the order that would sort an array of strings, without moving them.
+     * 
+     * @param keys the keys to sort by
+     * @return perm such that keys[perm[0]], keys[perm[1]], ... is sorted,
+     *         with equal keys in their original order
+     */
+    public static int[] argsort(String[] keys)
+    {
+        return argsort(keys, false);
+    }
+
+    /**
+     * Finds the order that would sort an array of strings, without moving them.
+     * 
+     * Strings are distributed on one character position at a time, starting
+     * with the first. Buckets of a single string, or of strings that have
+     * all ended, are never looked at again, so only the distinguishing
+     * prefixes are ever read. Small buckets are finished with insertion sort.
+     * A position whose keys span more values than there are strings is
+     * distributed on the high byte of each key first, then the low byte.
+     * 
+     * When ignoring case, a surrogate pair is folded as one code point, as
+     * compareToIgnoreCase does. compareToIgnoreCase has no consistent order
+     * for strings with unpaired surrogates, so those may be ordered differently.
+     * 
+     * @param keys the keys to sort by
+     * @param ignoreCase true to order the strings as compareToIgnoreCase does
+     * @return perm such that keys[perm[0]], keys[perm[1]], ... is sorted,
+     *         with equal keys in their original order
+     */
+    public static int[] argsort(String[] keys, boolean ignoreCase)
+    {
+        int[] perm = identity(keys.length);
+        msdRadixSort(keys, perm, new int[perm.length], 0, perm.length, 0, ignoreCase);
+        return perm;
+    }
+
+    /**
+     * Reorders columns so that row i of each becomes its old row perm[i].
+     * Each column is gathered through a single reused scratch array.
+     * Every length is checked before any column is changed.
+     * 
+     * @param perm the order to apply, such as one returned by argsort
+     * @param columns the columns to reorder, each as long as perm
+     * @throws IllegalArgumentException if a column is not as long as perm
+     */
+    public static void applyPermutation(int[] perm, int[]... columns)
+    {
+        for (int[] column : columns)
         {
-            buckets[i] = new ArrayQueue<String>();
+            checkColumnLength(perm, column.length);
         }
-        for (int i = 0; i < mostChars; i++)
+        int[] scratch = new int[perm.length];
+        for (int[] column : columns)
         {
-            while (!result.isEmpty())
+            System.arraycopy(column, 0, scratch, 0, perm.length);
+            for (int i = 0; i < perm.length; i++)
             {
-                String word = result.dequeue();
-                int bucket = word.toLowerCase().charAt(word.length() - 1 - i) - 'a' + 1;
-                buckets[bucket].enqueue(word);
+                column[i] = scratch[perm[i]];
             }
-            for (ArrayQueue<String> bucket : buckets)
+        }
+    }
+
+    /**
+     * Reorders columns so that row i of each becomes its old row perm[i].
+     * Each column is gathered through a single reused scratch array.
+     * Every length is checked before any column is changed.
+     * 
+     * @param perm the order to apply, such as one returned by argsort
+     * @param columns the columns to reorder, each as long as perm
+     * @throws IllegalArgumentException if a column is not as long as perm
+     */
+    public static void applyPermutation(int[] perm, long[]... columns)
+    {
+        for (long[] column : columns)
+        {
+            checkColumnLength(perm, column.length);
+        }
+        long[] scratch = new long[perm.length];
+        for (long[] column : columns)
+        {
+            System.arraycopy(column, 0, scratch, 0, perm.length);
+            for (int i = 0; i < perm.length; i++)
             {
-                while(!bucket.isEmpty())
+                column[i] = scratch[perm[i]];
+            }
+        }
+    }
+
+    /**
+     * Reorders columns so that row i of each becomes its old row perm[i].
+     * Each column is gathered through a single reused scratch array.
+     * Every length is checked before any column is changed.
+     * 
+     * @param perm the order to apply, such as one returned by argsort
+     * @param columns the columns to reorder, each as long as perm
+     * @throws IllegalArgumentException if a column is not as long as perm
+     */
+    public static void applyPermutation(int[] perm, double[]... columns)
+    {
+        for (double[] column : columns)
+        {
+            checkColumnLength(perm, column.length);
+        }
+        double[] scratch = new double[perm.length];
+        for (double[] column : columns)
+        {
+            System.arraycopy(column, 0, scratch, 0, perm.length);
+            for (int i = 0; i < perm.length; i++)
+            {
+                column[i] = scratch[perm[i]];
+            }
+        }
+    }
+
+    /**
+     * Reorders columns so that row i of each becomes its old row perm[i].
+     * Each column is gathered through a single reused scratch array.
+     * Every length is checked before any column is changed.
+     * 
+     * @param perm the order to apply, such as one returned by argsort
+     * @param columns the columns to reorder, each as long as perm
+     * @throws IllegalArgumentException if a column is not as long as perm
+     */
+    public static void applyPermutation(int[] perm, Object[]... columns)
+    {
+        for (Object[] column : columns)
+        {
+            checkColumnLength(perm, column.length);
+        }
+        Object[] scratch = new Object[perm.length];
+        for (Object[] column : columns)
+        {
+            System.arraycopy(column, 0, scratch, 0, perm.length);
+            for (int i = 0; i < perm.length; i++)
+            {
+                column[i] = scratch[perm[i]];
+            }
+        }
+    }
+
+    /**
+     * Checks every adjacent pair of strings for order.
+     * 
+     * @param data the strings to check
+     * @return true if no string is less than the one before it
+     */
+    private static boolean isSorted(String[] data)
+    {
+        for (int i = 1; i < data.length; i++)
+        {
+            if (data[i].compareTo(data[i - 1]) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a column to permute has a row for every entry of perm.
+     * 
+     * @param perm the order being applied
+     * @param length the length of the column
+     * @throws IllegalArgumentException if the lengths differ
+     */
+    private static void checkColumnLength(int[] perm, int length)
+    {
+        if (length != perm.length)
+        {
+            throw new IllegalArgumentException(
+                "Column of length " + length + " does not match permutation of length " + perm.length);
+        }
+    }
+
+    /**
+     * Recursive helper for the MSD string sort.
+     * Sorts perm[lo..hi) by the strings it points to,
+     * assuming those strings share their first d keys.
+     * 
+     * @param words the strings being sorted
+     * @param perm the indices into words being reordered
+     * @param aux scratch space at least as long as perm
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param d the character position to distribute on
+     * @param ignoreCase whether to fold the case of each character
+     */
+    private static void msdRadixSort(String[] words, int[] perm, int[] aux, int lo, int hi, int d,
+        boolean ignoreCase)
+    {
+        while (hi - lo > INSERTION_SORT_CUTOFF)
+        {
+            if (d >= SHARED_PREFIX_LIMIT)
+            {
+                // Strings sharing this long a prefix compare faster than they distribute,
+                // and distributing them costs a pass per shared char.
+                comparisonSort(words, perm, lo, hi, d, ignoreCase);
+                return;
+            }
+            // Size the buckets to the keys actually present at this position.
+            // This keeps the count array small for any character set.
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (int i = lo; i < hi; i++)
+            {
+                int key = charKey(words[perm[i]], d, ignoreCase);
+                if (key < min)
                 {
-                    result.enqueue(bucket.dequeue());
+                    min = key;
+                }
+                if (key > max)
+                {
+                    max = key;
                 }
             }
+            if (max == -1)
+            {
+                // Every string has ended, so they are all equal.
+                return;
+            }
+            if (min == max)
+            {
+                // A shared character, so there is nothing to distribute.
+                d++;
+                continue;
+            }
+            // A range wider than both a byte and the bucket, such as ASCII mixed
+            // with Hangul, is first split on the high byte of the keys. Each of
+            // those buckets then spans at most a byte, so a few strings never
+            // pay for counting a whole alphabet.
+            int shift = max - min >= KEY_RADIX && max - min >= hi - lo ? KEY_DIGIT_BITS : 0;
+            int[] count = new int[((max - min) >> shift) + 2];
+            for (int i = lo; i < hi; i++)
+            {
+                count[((charKey(words[perm[i]], d, ignoreCase) - min) >> shift) + 1]++;
+            }
+            for (int r = 1; r < count.length; r++)
+            {
+                count[r] += count[r - 1];
+            }
+            for (int i = lo; i < hi; i++)
+            {
+                int r = (charKey(words[perm[i]], d, ignoreCase) - min) >> shift;
+                aux[lo + count[r]++] = perm[i];
+            }
+            System.arraycopy(aux, lo, perm, lo, hi - lo);
+            // count[r] is now the end of bucket r.
+            // After a high byte split the buckets still differ in their low bytes,
+            // so they are sorted at the same position. Otherwise strings in the
+            // -1 bucket have ended and are already in place.
+            // Every bucket but the largest is sorted by a recursive call, and the
+            // largest by this loop. A recursive call gets at most half the strings,
+            // so the recursion is never more than log n deep, however long the keys.
+            int next = shift == 0 ? d + 1 : d;
+            int largestLo = lo;
+            int largestHi = lo;
+            int start = 0;
+            for (int r = 0; r < count.length - 1; r++)
+            {
+                if ((shift != 0 || r + min != -1) && count[r] - start > 1)
+                {
+                    if (count[r] - start <= largestHi - largestLo)
+                    {
+                        msdRadixSort(words, perm, aux, lo + start, lo + count[r], next, ignoreCase);
+                    }
+                    else
+                    {
+                        if (largestHi - largestLo > 1)
+                        {
+                            msdRadixSort(words, perm, aux, largestLo, largestHi, next, ignoreCase);
+                        }
+                        largestLo = lo + start;
+                        largestHi = lo + count[r];
+                    }
+                }
+                start = count[r];
+            }
+            lo = largestLo;
+            hi = largestHi;
+            d = next;
         }
-        for (int i = 0; i < data.size(); i++)
+        insertionSort(words, perm, lo, hi, d, ignoreCase);
+    }
+
+    /**
+     * Stable comparison sort of perm[lo..hi) by the strings it points to,
+     * assuming those strings share their first d keys.
+     * 
+     * @param words the strings being sorted
+     * @param perm the indices into words being reordered
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param d the first character position that may differ
+     * @param ignoreCase whether to fold the case of each character
+     */
+    private static void comparisonSort(String[] words, int[] perm, int lo, int hi, int d,
+        boolean ignoreCase)
+    {
+        Integer[] rows = new Integer[hi - lo];
+        for (int i = lo; i < hi; i++)
+        {
+            rows[i - lo] = perm[i];
+        }
+        if (ignoreCase)
         {
-            data.set(i, unpad(result.dequeue()));
+            // Compared by key rather than compareToIgnoreCase, which has no
+            // consistent order for strings with unpaired surrogates.
+            Arrays.sort(rows, (a, b) -> compareFrom(words[a], words[b], d, true));
+        }
+        else
+        {
+            Arrays.sort(rows, (a, b) -> words[a].compareTo(words[b]));
+        }
+        for (int i = lo; i < hi; i++)
+        {
+            perm[i] = rows[i - lo];
         }
     }
 
     /**
-     * Helper method to get the number of digits
-     * in the longest number in a list of ints.
+     * Stable insertion sort of perm[lo..hi) by the strings it points to,
+     * assuming those strings share their first d keys.
      * 
-     * @param nums the list to search through
-     * @return the number of digits of the longest number in the list
+     * @param words the strings being sorted
+     * @param perm the indices into words being reordered
+     * @param lo the first index to sort
+     * @param hi one past the last index to sort
+     * @param d the first character position that may differ
+     * @param ignoreCase whether to fold the case of each character
      */
-    private static int getMostDigits(List<Integer> nums)
+    private static void insertionSort(String[] words, int[] perm, int lo, int hi, int d,
+        boolean ignoreCase)
     {
-        int longestNumDigits = 0;
-        for (int i : nums)
+        for (int i = lo + 1; i < hi; i++)
         {
-            int numDigits = String.valueOf(i).length();
-            if (numDigits > longestNumDigits)
+            int index = perm[i];
+            int j = i;
+            while (j > lo && compareFrom(words[index], words[perm[j - 1]], d, ignoreCase) < 0)
             {
-                longestNumDigits = numDigits;
+                perm[j] = perm[j - 1];
+                j--;
             }
+            perm[j] = index;
         }
-        return longestNumDigits;
     }
 
     /**
-     * Helper method to get the number of characters
-     * in the longest string in a list of strings.
+     * Compares two strings starting from a given character position.
+     * 
+     * @param a the first string
+     * @param b the second string
+     * @param d the position to start comparing from
+     * @param ignoreCase whether to fold the case of each character
+     * @return negative, zero, or positive as a is less than, equal to, or greater than b
+     */
+    private static int compareFrom(String a, String b, int d, boolean ignoreCase)
+    {
+        int length = Math.min(a.length(), b.length());
+        for (int i = d; i < length; i++)
+        {
+            int diff = charKey(a, i, ignoreCase) - charKey(b, i, ignoreCase);
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Gets the sort key of the character at a position in a string.
+     * 
+     * @param word the string to read from
+     * @param d the position of the character
+     * @param ignoreCase whether to fold the case of the character
+     * @return the key of the character, or -1 if the string has ended
+     */
+    private static int charKey(String word, int d, boolean ignoreCase)
+    {
+        if (d >= word.length())
+        {
+            return -1;
+        }
+        char c = word.charAt(d);
+        if (!ignoreCase)
+        {
+            return c;
+        }
+        if (Character.isSurrogate(c))
+        {
+            return surrogateKey(word, d, c);
+        }
+        return foldCase(c);
+    }
+
+    /**
+     * Gets the case folded sort key of a surrogate char.
+     * Like compareToIgnoreCase, a surrogate pair is folded as one code point,
+     * which sorts after every char. So the high half of a pair gets a key above
+     * every char, and the low half gets the low surrogate of the folded code point.
+     * An unpaired surrogate is its own key.
+     * 
+     * @param word the string to read from
+     * @param d the position of the surrogate
+     * @param c the surrogate
+     * @return the key of the surrogate
+     */
+    private static int surrogateKey(String word, int d, char c)
+    {
+        if (Character.isHighSurrogate(c))
+        {
+            if (d + 1 < word.length() && Character.isLowSurrogate(word.charAt(d + 1)))
+            {
+                int folded = foldCase(Character.toCodePoint(c, word.charAt(d + 1)));
+                return Character.MIN_SUPPLEMENTARY_CODE_POINT + Character.highSurrogate(folded);
+            }
+        }
+        else if (d > 0 && Character.isHighSurrogate(word.charAt(d - 1)))
+        {
+            return Character.lowSurrogate(foldCase(Character.toCodePoint(word.charAt(d - 1), c)));
+        }
+        return c;
+    }
+
+    /**
+     * Folds the case of a code point the way compareToIgnoreCase does.
+     * A supplementary code point always folds to another one.
+     * 
+     * @param codePoint the code point
+     * @return the folded code point
+     */
+    private static int foldCase(int codePoint)
+    {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Sorts an array of ints with whichever algorithm suits the data.
+     * See chooseStrategy for how the choice is made.
+     * 
+     * @param data the array to be sorted.
+     * @return the algorithm that was used
+     */
+    public static SortStrategy sort(int[] data)
+    {
+        SortStrategy strategy = chooseStrategy(data);
+        switch (strategy)
+        {
+            case ALREADY_SORTED:
+                break;
+            case INSERTION:
+                // Small enough that this goes straight to insertion sort.
+                AmericanFlagSort.sort(data);
+                break;
+            case COUNTING:
+                countingSort(data);
+                break;
+            case COMPARISON:
+                Arrays.sort(data);
+                break;
+            default:
+                lsdRadixSort(data);
+                break;
+        }
+        return strategy;
+    }
+
+    /**
+     * Sorts an array of longs with whichever algorithm suits the data.
+     * See chooseStrategy for how the choice is made.
+     * 
+     * @param data the array to be sorted.
+     * @return the algorithm that was used
+     */
+    public static SortStrategy sort(long[] data)
+    {
+        SortStrategy strategy = chooseStrategy(data);
+        switch (strategy)
+        {
+            case ALREADY_SORTED:
+                break;
+            case INSERTION:
+                // Small enough that this goes straight to insertion sort.
+                AmericanFlagSort.sort(data);
+                break;
+            case COUNTING:
+                countingSort(data);
+                break;
+            case COMPARISON:
+                Arrays.sort(data);
+                break;
+            default:
+                lsdRadixSort(data);
+                break;
+        }
+        return strategy;
+    }
+
+    /**
+     * Sorts an array of strings with whichever algorithm suits the data.
+     * See chooseStrategy for how the choice is made.
+     * 
+     * @param data the array to be sorted.
+     * @return the algorithm that was used
+     */
+    public static SortStrategy sort(String[] data)
+    {
+        SortStrategy strategy = chooseStrategy(data);
+        switch (strategy)
+        {
+            case ALREADY_SORTED:
+                break;
+            case COMPARISON:
+                Arrays.sort(data);
+                break;
+            default:
+                // Small inputs go straight to insertion sort from here too.
+                msdRadixSort(data, false);
+                break;
+        }
+        return strategy;
+    }
+
+    /**
+     * Picks the algorithm sort would use for an array of ints.
+     * One pass finds the size, key range and number of descents:
+     * small inputs use insertion sort, sorted inputs are left alone,
+     * small key ranges use counting sort, nearly sorted inputs use
+     * a run-merging comparison sort, and everything else uses LSD radix sort.
+     * 
+     * @param data the array that would be sorted
+     * @return the algorithm that would be used
+     */
+    public static SortStrategy chooseStrategy(int[] data)
+    {
+        if (data.length <= AmericanFlagSort.INSERTION_SORT_CUTOFF)
+        {
+            return SortStrategy.INSERTION;
+        }
+        int min = data[0];
+        int max = data[0];
+        int descents = 0;
+        for (int i = 1; i < data.length; i++)
+        {
+            if (data[i] < data[i - 1])
+            {
+                descents++;
+            }
+            min = Math.min(min, data[i]);
+            max = Math.max(max, data[i]);
+        }
+        return chooseStrategy(data.length, (long) max - min, descents);
+    }
+
+    /**
+     * Picks the algorithm sort would use for an array of longs.
+     * Works the same way as for ints.
+     * 
+     * @param data the array that would be sorted
+     * @return the algorithm that would be used
+     */
+    public static SortStrategy chooseStrategy(long[] data)
+    {
+        if (data.length <= AmericanFlagSort.INSERTION_SORT_CUTOFF)
+        {
+            return SortStrategy.INSERTION;
+        }
+        long min = data[0];
+        long max = data[0];
+        int descents = 0;
+        for (int i = 1; i < data.length; i++)
+        {
+            if (data[i] < data[i - 1])
+            {
+                descents++;
+            }
+            min = Math.min(min, data[i]);
+            max = Math.max(max, data[i]);
+        }
+        // A range that overflows is certainly too big to count.
+        long range = max - min < 0 ? Long.MAX_VALUE : max - min;
+        return chooseStrategy(data.length, range, descents);
+    }
+
+    /**
+     * Picks the algorithm sort would use for an array of strings.
+     * 
+     * Only a sample of STRING_SAMPLE_PAIRS adjacent pairs is read. It estimates
+     * how often the data descends and how many leading chars neighbours share.
+     * Small inputs use insertion sort, and nearly sorted inputs use a run-merging
+     * comparison sort. So do keys sharing SHARED_PREFIX_LIMIT chars or more on
+     * average, like URLs under one host: MSD radix sort pays a distribution pass
+     * per shared char, where String.compareTo skips them in bulk. Everything else
+     * uses MSD radix sort. Input is only reported as sorted after checking every
+     * pair, which happens only when the sample finds no descents.
+     * 
+     * @param data the array that would be sorted
+     * @return the algorithm that would be used
+     */
+    public static SortStrategy chooseStrategy(String[] data)
+    {
+        if (data.length <= INSERTION_SORT_CUTOFF)
+        {
+            return SortStrategy.INSERTION;
+        }
+        int pairs = Math.min(data.length - 1, STRING_SAMPLE_PAIRS);
+        int descents = 0;
+        long shared = 0;
+        for (int k = 0; k < pairs; k++)
+        {
+            int i = (int) ((long) k * (data.length - 1) / pairs);
+            String a = data[i];
+            String b = data[i + 1];
+            if (b.compareTo(a) < 0)
+            {
+                descents++;
+            }
+            int limit = Math.min(Math.min(a.length(), b.length()), SHARED_PREFIX_LIMIT);
+            int prefix = 0;
+            while (prefix < limit && a.charAt(prefix) == b.charAt(prefix))
+            {
+                prefix++;
+            }
+            shared += prefix;
+        }
+        if (descents == 0)
+        {
+            return isSorted(data) ? SortStrategy.ALREADY_SORTED : SortStrategy.COMPARISON;
+        }
+        if ((long) descents * NEARLY_SORTED_RATIO < pairs
+            || shared >= (long) SHARED_PREFIX_LIMIT * pairs)
+        {
+            return SortStrategy.COMPARISON;
+        }
+        return SortStrategy.MSD_RADIX;
+    }
+
+    /**
+     * Sorts an array of ints using LSD radix sort.
+     * Digits on which every item agrees are skipped.
+     * 
+     * @param data the array to be sorted.
+     */
+    public static void lsdRadixSort(int[] data)
+    {
+        long[] keys = new long[data.length];
+        for (int i = 0; i < data.length; i++)
+        {
+            // Unsigned and zero-extended, so the upper four digits are skipped.
+            keys[i] = (data[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        }
+        sortUnsigned(keys);
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (int) keys[i] ^ Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Sorts an array of longs using LSD radix sort.
+     * Digits on which every item agrees are skipped.
+     * 
+     * @param data the array to be sorted.
+     */
+    public static void lsdRadixSort(long[] data)
+    {
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] ^= Long.MIN_VALUE;
+        }
+        sortUnsigned(data);
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] ^= Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Sorts a list of objects by an int key using radix sort.
+     * The sort is stable and each key is extracted only once.
+     * 
+     * @param data the list to be sorted.
+     * @param key extracts the key to sort by
+     */
+    public static <T> void sortByIntKey(List<T> data, ToIntFunction<? super T> key)
+    {
+        sortByLongKey(data, item -> key.applyAsInt(item));
+    }
+
+    /**
+     * Sorts a list of objects by a long key using radix sort.
+     * The sort is stable and each key is extracted only once.
+     * 
+     * @param data the list to be sorted.
+     * @param key extracts the key to sort by
+     */
+    public static <T> void sortByLongKey(List<T> data, ToLongFunction<? super T> key)
+    {
+        sortByLongKeys(data, key);
+    }
+
+    /**
+     * Sorts a list of objects by a double key using radix sort.
+     * Keys are ordered as Double.compare orders them: -0.0 before 0.0 and NaN last.
+     * The sort is stable and each key is extracted only once.
+     * 
+     * @param data the list to be sorted.
+     * @param key extracts the key to sort by
+     */
+    public static <T> void sortByDoubleKey(List<T> data, ToDoubleFunction<? super T> key)
+    {
+        sortByLongKey(data, item -> doubleKey(key.applyAsDouble(item)));
+    }
+
+    /**
+     * Sorts a list of objects by several long keys using radix sort.
+     * Objects are ordered by the first key, ties are broken by the second, and so on.
+     * The sort is stable and each key is extracted only once.
+     * 
+     * Other key types can be mixed in by converting them to longs,
+     * such as with doubleKey for doubles.
+     * 
+     * @param data the list to be sorted.
+     * @param keys extract the keys to sort by, most significant first
+     */
+    @SafeVarargs
+    public static <T> void sortByLongKeys(List<T> data, ToLongFunction<? super T>... keys)
+    {
+        Object[] items = data.toArray();
+        int[] order = identity(items.length);
+        long[] sortKeys = new long[items.length];
+        // Least significant key first, relying on each pass being stable.
+        for (int k = keys.length - 1; k >= 0; k--)
+        {
+            for (int i = 0; i < items.length; i++)
+            {
+                @SuppressWarnings("unchecked")
+                T item = (T) items[order[i]];
+                sortKeys[i] = keys[k].applyAsLong(item) ^ Long.MIN_VALUE;
+            }
+            sortWithIndex(sortKeys, order);
+        }
+        for (int i = 0; i < order.length; i++)
+        {
+            @SuppressWarnings("unchecked")
+            T item = (T) items[order[i]];
+            data.set(i, item);
+        }
+    }
+
+    /**
+     * Converts a double to a long with the same ordering.
+     * Comparing two results as longs gives the same answer
+     * as Double.compare on the original doubles.
+     * 
+     * @param value the double to convert
+     * @return a long that sorts where value does
+     */
+    public static long doubleKey(double value)
+    {
+        long bits = Double.doubleToLongBits(value);
+        // Negative doubles grow in magnitude as their bits grow, so flip them.
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Shared decision for sorting ints and longs once the data is profiled.
      * 
-     * @param words the list to search through
-     * @return the number of chgaracters in the longest string in the list
+     * @param length the number of items
+     * @param range the largest item minus the smallest
+     * @param descents the number of items smaller than the one before them
+     * @return the algorithm to use
      */
-    private static int getMostCharacters(List<String> words)
+    private static SortStrategy chooseStrategy(int length, long range, int descents)
     {
-        int longestNumChars = 0;
-        for (String i : words)
+        if (descents == 0)
+        {
+            return SortStrategy.ALREADY_SORTED;
+        }
+        if (range < MAX_COUNTING_RANGE && range < 2L * length)
+        {
+            return SortStrategy.COUNTING;
+        }
+        if ((long) descents * NEARLY_SORTED_RATIO < length)
+        {
+            return SortStrategy.COMPARISON;
+        }
+        return SortStrategy.LSD_RADIX;
+    }
+
+    /**
+     * Sorts ints by counting how many times each value in their range appears.
+     * 
+     * @param data the array to be sorted, with a small range
+     */
+    private static void countingSort(int[] data)
+    {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int item : data)
+        {
+            min = Math.min(min, item);
+            max = Math.max(max, item);
+        }
+        int[] counts = new int[max - min + 1];
+        for (int item : data)
+        {
+            counts[item - min]++;
+        }
+        for (int value = 0, i = 0; value < counts.length; value++)
+        {
+            for (int c = counts[value]; c > 0; c--)
+            {
+                data[i++] = value + min;
+            }
+        }
+    }
+
+    /**
+     * Sorts longs by counting how many times each value in their range appears.
+     * 
+     * @param data the array to be sorted, with a small range
+     */
+    private static void countingSort(long[] data)
+    {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long item : data)
+        {
+            min = Math.min(min, item);
+            max = Math.max(max, item);
+        }
+        int[] counts = new int[(int) (max - min) + 1];
+        for (long item : data)
+        {
+            counts[(int) (item - min)]++;
+        }
+        for (int value = 0, i = 0; value < counts.length; value++)
         {
-            if (i.length() > longestNumChars)
+            for (int c = counts[value]; c > 0; c--)
             {
-                longestNumChars = i.length();
+                data[i++] = value + min;
             }
         }
-        return longestNumChars;
     }
 
     /**
-     * Pads a string with backticks on the right up to a given length.
+     * Sorts keys compared as unsigned using LSD radix sort.
      * 
-     * @param data the list of strings to pad
-     * @param length the length to which to pad the strings
+     * @param keys the keys to sort
      */
-    private static String pad(String data, int length)
+    private static void sortUnsigned(long[] keys)
     {
-        String s = data;
-        while (s.length() < length)
+        sortWithIndex(keys, null);
+    }
+
+    /**
+     * Finds the stable sorted order of keys compared as unsigned.
+     * The keys array is sorted in the process.
+     * 
+     * @param keys the keys to sort by
+     * @return the permutation that sorts the original keys
+     */
+    private static int[] argsortUnsigned(long[] keys)
+    {
+        int[] perm = identity(keys.length);
+        sortWithIndex(keys, perm);
+        return perm;
+    }
+
+    /**
+     * Creates the permutation that leaves everything where it is.
+     * 
+     * @param length the length of the permutation
+     * @return the array 0, 1, ..., length - 1
+     */
+    private static int[] identity(int length)
+    {
+        int[] perm = new int[length];
+        for (int i = 0; i < length; i++)
         {
-            s += "`";
+            perm[i] = i;
         }
-        return s;
+        return perm;
     }
 
     /**
-     * Removes all trailing backticks from a string.
+     * Stable LSD radix sort of keys, compared as unsigned, carrying index along.
+     * Whenever keys[i] is moved, index[i] is moved with it.
+     * Digits on which every key agrees are skipped.
      * 
-     * @param word the word to trim
+     * @param keys the keys to sort
+     * @param index the values to reorder alongside keys, or null for none
      */
-    private static String unpad(String word)
+    private static void sortWithIndex(long[] keys, int[] index)
     {
-        return word.replaceAll("`", "");
+        int n = keys.length;
+        int passes = Long.SIZE / KEY_DIGIT_BITS;
+        int[][] counts = new int[passes][KEY_RADIX];
+        for (long key : keys)
+        {
+            for (int p = 0; p < passes; p++)
+            {
+                counts[p][(int) (key >>> (p * KEY_DIGIT_BITS)) & (KEY_RADIX - 1)]++;
+            }
+        }
+        // Alternate between the caller's arrays and the buffers each pass.
+        long[] fromKeys = keys;
+        int[] fromIndex = index;
+        long[] toKeys = new long[n];
+        int[] toIndex = index == null ? null : new int[n];
+        for (int p = 0; p < passes; p++)
+        {
+            int shift = p * KEY_DIGIT_BITS;
+            int[] count = counts[p];
+            if (n == 0 || count[(int) (fromKeys[0] >>> shift) & (KEY_RADIX - 1)] == n)
+            {
+                continue;
+            }
+            // Turn the counts into the starting position of each bucket.
+            for (int r = 0, total = 0; r < KEY_RADIX; r++)
+            {
+                int c = count[r];
+                count[r] = total;
+                total += c;
+            }
+            if (index == null)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    toKeys[count[(int) (fromKeys[i] >>> shift) & (KEY_RADIX - 1)]++] = fromKeys[i];
+                }
+            }
+            else
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    int to = count[(int) (fromKeys[i] >>> shift) & (KEY_RADIX - 1)]++;
+                    toKeys[to] = fromKeys[i];
+                    toIndex[to] = fromIndex[i];
+                }
+            }
+            long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            int[] swapIndex = fromIndex;
+            fromIndex = toIndex;
+            toIndex = swapIndex;
+        }
+        if (fromKeys != keys)
+        {
+            System.arraycopy(fromKeys, 0, keys, 0, n);
+            if (index != null)
+            {
+                System.arraycopy(fromIndex, 0, index, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Helper method to get the number of digits
+     * in the longest number in a list of ints.
+     * 
+     * @param nums the list to search through
+     * @return the number of digits of the longest number in the list
+     */
+    private static int getMostDigits(List<Integer> nums)
+    {
+        int longestNumDigits = 0;
+        for (int i : nums)
+        {
+            int numDigits = String.valueOf(i).length();
+            if (numDigits > longestNumDigits)
+            {
+                longestNumDigits = numDigits;
+            }
+        }
+        return longestNumDigits;
     }
 }
@@ -0,0 +1,42 @@
+package algorithms;
+
+/**
+ * The algorithms RadixSort.sort can choose between.
+ * Returned by the sort so callers can see what was done with their data.
+ *
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public enum SortStrategy
+{
+    /**
+     * The data was already in order, so nothing was moved.
+     */
+    ALREADY_SORTED,
+
+    /**
+     * Too few items for anything but insertion sort to pay off.
+     */
+    INSERTION,
+
+    /**
+     * The keys span a small range, so each value was counted and written back.
+     */
+    COUNTING,
+
+    /**
+     * The data was nearly in order, or its keys shared long prefixes,
+     * so a comparison sort that merges runs was used.
+     */
+    COMPARISON,
+
+    /**
+     * Least significant digit first radix sort.
+     */
+    LSD_RADIX,
+
+    /**
+     * Most significant digit first radix sort.
+     */
+    MSD_RADIX
+}
@@ -0,0 +1,161 @@
+package client;
+
+/**
+ * Counts latencies in buckets that grow with the value, like HdrHistogram.
+ * 
+ * Values below 2048 get a bucket each. Above that, every power of two is split
+ * into 1024 buckets, so any recorded value is reported to within about 0.1%
+ * while a nanosecond histogram covering hours stays a few hundred kilobytes.
+ * Not thread safe; give each thread its own and add them together afterwards.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class LatencyHistogram
+{
+    /**
+     * Bits of precision kept for each value.
+     */
+    private static final int SUB_BUCKET_BITS = 11;
+
+    /**
+     * Values below this are counted exactly.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Buckets per power of two above SUB_BUCKETS.
+     */
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private long[] counts;
+
+    /**
+     * The number of values recorded.
+     */
+    private long totalCount;
+
+    /**
+     * The largest value recorded.
+     */
+    private long maxValue;
+
+    /**
+     * Creates a new empty histogram that can hold any non-negative long.
+     */
+    public LatencyHistogram()
+    {
+        counts = new long[indexOf(Long.MAX_VALUE) + 1];
+        totalCount = 0;
+        maxValue = 0;
+    }
+
+    /**
+     * Records one value.
+     * 
+     * @param value the value to record, negatives are counted as 0
+     */
+    public void record(long value)
+    {
+        value = Math.max(value, 0);
+        counts[indexOf(value)]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Adds every value recorded in another histogram to this one.
+     * 
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other)
+    {
+        for (int i = 0; i < counts.length; i++)
+        {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * Finds the value that a given percentage of recorded values are at or below.
+     * 
+     * @param percentile between 0 and 100
+     * @return the highest value in the bucket reaching that percentile,
+     *         or 0 if nothing has been recorded
+     */
+    public long valueAtPercentile(double percentile)
+    {
+        long target = Math.max((long) Math.ceil(percentile / 100 * totalCount), 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= target)
+            {
+                return Math.min(highestValueAt(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Getter for the number of values recorded.
+     * 
+     * @return the number of values recorded
+     */
+    public long getTotalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * Getter for the largest value recorded.
+     * 
+     * @return the largest value recorded, or 0 if nothing has been
+     */
+    public long getMaxValue()
+    {
+        return maxValue;
+    }
+
+    /**
+     * Finds the bucket a value is counted in.
+     * 
+     * @param value a non-negative value
+     * @return the index into counts
+     */
+    private static int indexOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (subBucket - HALF_SUB_BUCKETS);
+    }
+
+    /**
+     * Finds the highest value counted in a bucket.
+     * 
+     * @param index the index into counts
+     * @return the highest value that indexOf maps to index
+     */
+    private static long highestValueAt(int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        long highest = ((subBucket + 1) << shift) - 1;
+        // The very last bucket runs past the largest long.
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
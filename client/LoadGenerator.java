@@ -0,0 +1,367 @@
+package client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import storage.ArrayQueue;
+import storage.LinkedListQueue;
+import storage.ManualLinkedListQueue;
+
+/**
+ * Runs producer and consumer threads against a queue and reports latency.
+ * 
+ * Usage: java client.LoadGenerator [--option value]...
+ * <ul>
+ * <li>--queue array, linked or manual (default array)</li>
+ * <li>--producers number of producer threads (default 1)</li>
+ * <li>--consumers number of consumer threads (default 1)</li>
+ * <li>--threads platform or virtual, virtual needs Java 21 (default platform)</li>
+ * <li>--seconds how long producers run for (default 5)</li>
+ * <li>--ops total items to produce instead of running for a time</li>
+ * <li>--rate items per second per producer, 0 for as fast as possible (default 0)</li>
+ * </ul>
+ * 
+ * Each item carries the time it was meant to be enqueued, and consumers record
+ * the time from then until they dequeue it. With a rate, that is the scheduled
+ * time rather than the time the producer got around to it, so stalls are
+ * charged to every item they delay instead of hiding them (coordinated omission).
+ * The queues are not thread safe, so every operation holds one shared lock.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class LoadGenerator
+{
+    /**
+     * The queue under test, guarded by lock.
+     */
+    private final TestQueue queue;
+
+    /**
+     * Guards every operation on queue.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * The number of producer threads.
+     */
+    private final int producers;
+
+    /**
+     * The number of consumer threads.
+     */
+    private final int consumers;
+
+    /**
+     * Whether to run on virtual threads.
+     */
+    private final boolean virtual;
+
+    /**
+     * How long producers run for, if ops is 0.
+     */
+    private final long durationNanos;
+
+    /**
+     * The total number of items to produce, or 0 to run for durationNanos.
+     */
+    private final long ops;
+
+    /**
+     * Nanoseconds between items for each producer, or 0 for as fast as possible.
+     */
+    private final long intervalNanos;
+
+    /**
+     * The number of producers still running.
+     */
+    private final AtomicLong runningProducers;
+
+    /**
+     * The number of items enqueued so far.
+     */
+    private final AtomicLong produced;
+
+    /**
+     * Creates a new load generator.
+     * 
+     * @param queue the queue to test
+     * @param producers the number of producer threads
+     * @param consumers the number of consumer threads
+     * @param virtual whether to run on virtual threads
+     * @param durationNanos how long producers run for, if ops is 0
+     * @param ops the total number of items to produce, or 0 to run for durationNanos
+     * @param rate items per second per producer, or 0 for as fast as possible
+     */
+    public LoadGenerator(TestQueue queue, int producers, int consumers, boolean virtual,
+        long durationNanos, long ops, double rate)
+    {
+        this.queue = queue;
+        this.lock = new ReentrantLock();
+        this.producers = producers;
+        this.consumers = consumers;
+        this.virtual = virtual;
+        this.durationNanos = durationNanos;
+        this.ops = ops;
+        this.intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+        this.runningProducers = new AtomicLong(producers);
+        this.produced = new AtomicLong();
+    }
+
+    /**
+     * Parses the options, runs the load and prints the results.
+     * 
+     * @param args pairs of --option value
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String queueName = options.getOrDefault("queue", "array");
+        LoadGenerator generator = new LoadGenerator(
+            newQueue(queueName),
+            Integer.parseInt(options.getOrDefault("producers", "1")),
+            Integer.parseInt(options.getOrDefault("consumers", "1")),
+            options.getOrDefault("threads", "platform").equals("virtual"),
+            (long) (Double.parseDouble(options.getOrDefault("seconds", "5")) * 1e9),
+            Long.parseLong(options.getOrDefault("ops", "0")),
+            Double.parseDouble(options.getOrDefault("rate", "0")));
+
+        long start = System.nanoTime();
+        LatencyHistogram latencies = generator.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("queue=%s producers=%d consumers=%d threads=%s%n", queueName,
+            generator.producers, generator.consumers, generator.virtual ? "virtual" : "platform");
+        System.out.printf("produced=%d consumed=%d seconds=%.3f throughput=%.0f/s%n",
+            generator.produced.get(), latencies.getTotalCount(), seconds,
+            latencies.getTotalCount() / seconds);
+        System.out.printf("latency us: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+            latencies.valueAtPercentile(50) / 1e3, latencies.valueAtPercentile(99) / 1e3,
+            latencies.valueAtPercentile(99.9) / 1e3, latencies.getMaxValue() / 1e3);
+    }
+
+    /**
+     * Creates an empty queue of a named implementation.
+     * 
+     * @param name array, linked or manual
+     * @return the queue
+     * @throws IllegalArgumentException if the name is not known
+     */
+    public static TestQueue newQueue(String name)
+    {
+        switch (name)
+        {
+            case "array":
+                ArrayQueue<Long> array = new ArrayQueue<>();
+                return new TestQueue(array::enqueue, array::dequeue, array::isEmpty);
+            case "linked":
+                LinkedListQueue<Long> linked = new LinkedListQueue<>();
+                return new TestQueue(linked::enqueue, linked::dequeue, linked::isEmpty);
+            case "manual":
+                ManualLinkedListQueue<Long> manual = new ManualLinkedListQueue<>();
+                return new TestQueue(manual::enqueue, manual::dequeue, manual::isEmpty);
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + name);
+        }
+    }
+
+    /**
+     * Runs the producers and consumers until everything produced is consumed.
+     * 
+     * @return the latency of every item, in nanoseconds
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public LatencyHistogram run() throws InterruptedException
+    {
+        long start = System.nanoTime();
+        Thread[] threads = new Thread[producers + consumers];
+        LatencyHistogram[] histograms = new LatencyHistogram[consumers];
+        for (int p = 0; p < producers; p++)
+        {
+            long count = ops / producers + (p < ops % producers ? 1 : 0);
+            threads[p] = newThread(() -> produce(start, count));
+        }
+        for (int c = 0; c < consumers; c++)
+        {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms[c] = histogram;
+            threads[producers + c] = newThread(() -> consume(histogram));
+        }
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms)
+        {
+            total.add(histogram);
+        }
+        return total;
+    }
+
+    /**
+     * Enqueues items until the count or the time runs out.
+     * 
+     * @param start when the run started
+     * @param count the number of items to enqueue, if ops was given
+     */
+    private void produce(long start, long count)
+    {
+        long deadline = start + durationNanos;
+        long intended = start;
+        long i = 0;
+        for (; ops > 0 ? i < count : System.nanoTime() < deadline; i++)
+        {
+            long now = System.nanoTime();
+            if (intervalNanos > 0)
+            {
+                intended += intervalNanos;
+                if (intended > now)
+                {
+                    LockSupport.parkNanos(intended - now);
+                }
+            }
+            else
+            {
+                intended = now;
+            }
+            lock.lock();
+            try
+            {
+                queue.enqueue.accept(intended);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        produced.addAndGet(i);
+        runningProducers.decrementAndGet();
+    }
+
+    /**
+     * Dequeues items and records their latency until producers are done
+     * and the queue is empty.
+     * 
+     * @param histogram where to record latencies
+     */
+    private void consume(LatencyHistogram histogram)
+    {
+        while (true)
+        {
+            // Read before checking the queue, so an empty queue after this means done.
+            boolean producing = runningProducers.get() > 0;
+            Long intended = null;
+            lock.lock();
+            try
+            {
+                if (!queue.isEmpty.getAsBoolean())
+                {
+                    intended = queue.dequeue.get();
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+            if (intended != null)
+            {
+                histogram.record(System.nanoTime() - intended);
+            }
+            else if (!producing)
+            {
+                return;
+            }
+            else if (virtual)
+            {
+                // onSpinWait never gives up the carrier, so spinning consumers
+                // could keep producers from ever being scheduled.
+                Thread.yield();
+            }
+            else
+            {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Creates an unstarted platform or virtual thread.
+     * Virtual threads are looked up reflectively so this builds on older Java.
+     * 
+     * @param task what the thread runs
+     * @return the thread
+     * @throws UnsupportedOperationException if virtual threads are not available
+     */
+    private Thread newThread(Runnable task)
+    {
+        if (!virtual)
+        {
+            return new Thread(task);
+        }
+        try
+        {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (Thread) Class.forName("java.lang.Thread$Builder")
+                .getMethod("unstarted", Runnable.class).invoke(builder, task);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later", e);
+        }
+    }
+
+    /**
+     * The operations the load generator needs from a queue.
+     * The queue classes share no interface, so each is adapted with method references.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    public static class TestQueue
+    {
+        /**
+         * Adds an item to the back of the queue.
+         */
+        private final Consumer<Long> enqueue;
+
+        /**
+         * Removes the item at the front of the queue.
+         */
+        private final Supplier<Long> dequeue;
+
+        /**
+         * Checks if the queue is empty.
+         */
+        private final BooleanSupplier isEmpty;
+
+        /**
+         * Creates a new adapter.
+         * 
+         * @param enqueue adds an item to the back of the queue
+         * @param dequeue removes the item at the front of the queue
+         * @param isEmpty checks if the queue is empty
+         */
+        public TestQueue(Consumer<Long> enqueue, Supplier<Long> dequeue, BooleanSupplier isEmpty)
+        {
+            this.enqueue = enqueue;
+            this.dequeue = dequeue;
+            this.isEmpty = isEmpty;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package client;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import algorithms.AmericanFlagSort;
+import algorithms.RadixSort;
+
+/**
+ * Benchmarks the sorts against the library sorts over several distributions.
+ * 
+ * Usage: java client.SortBenchmark [sizes] [seconds]
+ * where sizes is a comma separated list of input sizes (default 1000,100000,1000000)
+ * and seconds is the minimum time to measure each case for (default 1).
+ * 
+ * Each case is warmed up for as long as it is measured, so even small inputs
+ * reach compiled code before timing starts. It is then measured in
+ * MEASURE_ITERATIONS iterations, each run on fresh copies of the same input
+ * until its share of the time is up. Reports operations per second and
+ * nanoseconds per element from the median iteration, the fastest and slowest
+ * iterations' nanoseconds per element, and bytes allocated per element by the
+ * sorting thread. Allocation by other threads, such as those of parallelSort,
+ * is not counted.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class SortBenchmark
+{
+    /**
+     * The fewest untimed runs of each case before measuring,
+     * however quickly the warmup time passes.
+     */
+    public static final int WARMUP_RUNS = 3;
+
+    /**
+     * Separately timed iterations of each case, to show the spread between them.
+     */
+    public static final int MEASURE_ITERATIONS = 5;
+
+    /**
+     * Distinct values in the few-unique distribution.
+     */
+    public static final int FEW_UNIQUE = 16;
+
+    /**
+     * Distinct values in the skewed distribution.
+     */
+    public static final int ZIPF_VALUES = 10000;
+
+    /**
+     * Exponent of the skewed distribution. Higher is more skewed.
+     */
+    public static final double ZIPF_EXPONENT = 1.1;
+
+    /**
+     * Length of the shared prefix in the long-common-prefix distribution.
+     */
+    public static final int PREFIX_LENGTH = 40;
+
+    /**
+     * The distributions to generate ints from.
+     */
+    private static final String[] INT_DISTRIBUTIONS =
+        {"uniform", "zipf", "sorted", "reverse", "few-unique"};
+
+    /**
+     * The distributions to generate strings from.
+     */
+    private static final String[] STRING_DISTRIBUTIONS =
+        {"uniform", "zipf", "sorted", "reverse", "few-unique", "common-prefix"};
+
+    /**
+     * Don't make these!
+     */
+    private SortBenchmark() {}
+
+    /**
+     * Runs every case at every size and prints a table of results.
+     * 
+     * @param args optionally the sizes and the seconds per case
+     */
+    public static void main(String[] args)
+    {
+        int[] sizes = args.length > 0
+            ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1000, 100000, 1000000};
+        long minNanos = (long) ((args.length > 1 ? Double.parseDouble(args[1]) : 1) * 1e9);
+
+        List<Case<int[], ?>> intCases = new ArrayList<>();
+        intCases.add(new Case<>("intRadixSort", SortBenchmark::boxed, RadixSort::intRadixSort));
+        intCases.add(new Case<>("Collections.sort", SortBenchmark::boxed, Collections::sort));
+        intCases.add(new Case<>("RadixSort.sort", int[]::clone, RadixSort::sort));
+        intCases.add(new Case<>("lsdRadixSort", int[]::clone, RadixSort::lsdRadixSort));
+        intCases.add(new Case<>("AmericanFlagSort", int[]::clone, AmericanFlagSort::sort));
+        intCases.add(new Case<>("Arrays.sort", int[]::clone, Arrays::sort));
+        intCases.add(new Case<>("Arrays.parallelSort", int[]::clone, Arrays::parallelSort));
+
+        List<Case<String[], ?>> stringCases = new ArrayList<>();
+        stringCases.add(new Case<>("alphabeticalRadixSort", SortBenchmark::asList,
+            RadixSort::alphabeticalRadixSort));
+        stringCases.add(new Case<>("Collections.sort", SortBenchmark::asList, Collections::sort));
+        stringCases.add(new Case<>("RadixSort.sort", String[]::clone, RadixSort::sort));
+        stringCases.add(new Case<>("Arrays.sort", String[]::clone, Arrays::sort));
+        stringCases.add(new Case<>("Arrays.parallelSort", String[]::clone, Arrays::parallelSort));
+
+        System.out.printf("%-8s %-14s %-22s %10s %12s %10s %10s %10s %10s%n",
+            "type", "distribution", "sort", "size", "ops/s", "ns/elem", "min", "max", "B/elem");
+        Random random = new Random(42);
+        for (int size : sizes)
+        {
+            for (String distribution : INT_DISTRIBUTIONS)
+            {
+                int[] input = randomInts(distribution, size, random);
+                for (Case<int[], ?> c : intCases)
+                {
+                    c.run("int", distribution, input, size, minNanos);
+                }
+            }
+            for (String distribution : STRING_DISTRIBUTIONS)
+            {
+                String[] input = randomStrings(distribution, size, random);
+                for (Case<String[], ?> c : stringCases)
+                {
+                    c.run("String", distribution, input, size, minNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates non-negative ints, since intRadixSort cannot sort negatives.
+     * 
+     * @param distribution one of INT_DISTRIBUTIONS
+     * @param size the number of ints to generate
+     * @param random the source of randomness
+     * @return the generated ints
+     */
+    public static int[] randomInts(String distribution, int size, Random random)
+    {
+        int[] data = new int[size];
+        double[] zipf = distribution.equals("zipf") ? zipfTable() : null;
+        for (int i = 0; i < size; i++)
+        {
+            switch (distribution)
+            {
+                case "zipf":
+                    data[i] = zipf(zipf, random);
+                    break;
+                case "sorted":
+                    data[i] = i;
+                    break;
+                case "reverse":
+                    data[i] = size - i;
+                    break;
+                case "few-unique":
+                    data[i] = random.nextInt(FEW_UNIQUE) * 1000;
+                    break;
+                default:
+                    data[i] = random.nextInt(Integer.MAX_VALUE);
+                    break;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Generates lowercase strings.
+     * 
+     * @param distribution one of STRING_DISTRIBUTIONS
+     * @param size the number of strings to generate
+     * @param random the source of randomness
+     * @return the generated strings
+     */
+    public static String[] randomStrings(String distribution, int size, Random random)
+    {
+        int[] keys = randomInts(distribution.equals("common-prefix") ? "uniform" : distribution,
+            size, random);
+        String prefix = distribution.equals("common-prefix")
+            ? "https://example.com/" + "a".repeat(PREFIX_LENGTH - 20) : "";
+        String[] data = new String[size];
+        for (int i = 0; i < size; i++)
+        {
+            // Fixed width, so the strings sort in the same order as the ints.
+            data[i] = prefix + toLetters(keys[i]);
+        }
+        return data;
+    }
+
+    /**
+     * Spells an int in base 26 with seven letters, so string order matches int order.
+     * 
+     * @param value the non-negative int to spell
+     * @return the letters
+     */
+    private static String toLetters(int value)
+    {
+        char[] letters = new char[7];
+        for (int i = letters.length - 1; i >= 0; i--)
+        {
+            letters[i] = (char) ('a' + value % 26);
+            value /= 26;
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Builds the cumulative distribution of a Zipf distribution over ZIPF_VALUES values.
+     * 
+     * @return the chance of each value or any smaller one
+     */
+    private static double[] zipfTable()
+    {
+        double[] cdf = new double[ZIPF_VALUES];
+        double total = 0;
+        for (int i = 0; i < ZIPF_VALUES; i++)
+        {
+            total += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < ZIPF_VALUES; i++)
+        {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    /**
+     * Draws from a Zipf distribution, spreading the values out so they have several digits.
+     * 
+     * @param cdf the table from zipfTable
+     * @param random the source of randomness
+     * @return the value drawn
+     */
+    private static int zipf(double[] cdf, Random random)
+    {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index < 0 ? -index - 1 : index;
+        return rank * 7919;
+    }
+
+    /**
+     * Copies ints into a list of Integers.
+     * 
+     * @param data the ints to copy
+     * @return a new modifiable list
+     */
+    private static List<Integer> boxed(int[] data)
+    {
+        List<Integer> list = new ArrayList<>(data.length);
+        for (int item : data)
+        {
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * Copies strings into a list.
+     * 
+     * @param data the strings to copy
+     * @return a new modifiable list
+     */
+    private static List<String> asList(String[] data)
+    {
+        return new ArrayList<>(Arrays.asList(data));
+    }
+
+    /**
+     * Reads how many bytes the current thread has allocated, if the JVM can tell.
+     * 
+     * @return the bytes allocated so far, or 0 if unsupported
+     */
+    private static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+        {
+            return ((com.sun.management.ThreadMXBean) bean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * One sort to benchmark.
+     * The copy step is not timed, so each run starts from the same unsorted input.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private static class Case<D, T>
+    {
+        /**
+         * The name printed for this case.
+         */
+        private final String name;
+
+        /**
+         * Makes a fresh copy of the input in the form the sort takes.
+         */
+        private final Function<D, T> copy;
+
+        /**
+         * The sort being measured.
+         */
+        private final Consumer<T> sort;
+
+        /**
+         * Creates a new case.
+         * 
+         * @param name the name printed for this case
+         * @param copy makes a fresh copy of the input in the form the sort takes
+         * @param sort the sort being measured
+         */
+        public Case(String name, Function<D, T> copy, Consumer<T> sort)
+        {
+            this.name = name;
+            this.copy = copy;
+            this.sort = sort;
+        }
+
+        /**
+         * Warms up, measures and prints one row.
+         * 
+         * @param type the type of the items, for printing
+         * @param distribution the name of the distribution, for printing
+         * @param input the input to sort copies of
+         * @param size the number of items in the input
+         * @param minNanos the least time to spend measuring
+         */
+        public void run(String type, String distribution, D input, int size, long minNanos)
+        {
+            long warmupEnd = System.nanoTime() + minNanos;
+            for (int i = 0; i < WARMUP_RUNS || System.nanoTime() < warmupEnd; i++)
+            {
+                sort.accept(copy.apply(input));
+            }
+            double[] nanosPerElement = new double[MEASURE_ITERATIONS];
+            long totalRuns = 0;
+            long bytes = 0;
+            for (int iteration = 0; iteration < MEASURE_ITERATIONS; iteration++)
+            {
+                long runs = 0;
+                long nanos = 0;
+                while (nanos < minNanos / MEASURE_ITERATIONS)
+                {
+                    T data = copy.apply(input);
+                    long startBytes = allocatedBytes();
+                    long start = System.nanoTime();
+                    sort.accept(data);
+                    nanos += System.nanoTime() - start;
+                    bytes += allocatedBytes() - startBytes;
+                    runs++;
+                }
+                nanosPerElement[iteration] = nanos / ((double) runs * Math.max(size, 1));
+                totalRuns += runs;
+            }
+            Arrays.sort(nanosPerElement);
+            double median = nanosPerElement[MEASURE_ITERATIONS / 2];
+            System.out.printf("%-8s %-14s %-22s %10d %12.2f %10.2f %10.2f %10.2f %10.2f%n",
+                type, distribution, name, size, 1e9 / (median * Math.max(size, 1)), median,
+                nanosPerElement[0], nanosPerElement[MEASURE_ITERATIONS - 1],
+                bytes / ((double) totalRuns * Math.max(size, 1)));
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package storage;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Queue Abstract Data Type (ADT) implemented using an Array.
@@ -109,6 +116,7 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
             throw new NoSuchElementException();
         }
         T ret = (T) data[front];
+        data[front] = null;
         front = (front + 1) % data.length;
         manyItems--;
         return ret;
@@ -137,6 +145,72 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
         manyItems++;
     }
 
+    /*
+     * The following three methods let the queue be used as a deque,
+     * adding and removing at both ends.
+     */
+
+    /**
+     * Retrieves the element at the rear of the queue.
+     * The element is NOT removed from the queue.
+     * 
+     * @return the element at the rear of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public T examineRear()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return (T) data[rear];
+    }
+
+    /**
+     * Retrieves an element from the rear of the queue.
+     * The element retrieved is removed from the queue.
+     * 
+     * @return the element at the rear of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public T dequeueRear()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        T ret = (T) data[rear];
+        data[rear] = null;
+        rear = (rear - 1 + data.length) % data.length;
+        manyItems--;
+        return ret;
+    }
+
+    /**
+     * Adds an element to the front of the queue, ahead of everything else.
+     * 
+     * @param item the element to add
+     */
+    public void enqueueFront(T item)
+    {
+        if (size() == data.length)
+        {
+            ensureCapacity(size() * 2 + 1);
+        }
+        if (front == -1)
+        {
+            front = rear = 0;
+        }
+        else
+        {
+            front = (front - 1 + data.length) % data.length;
+        }
+        data[front] = item;
+        manyItems++;
+    }
+
     /**
      * Checks if the queue is empty.
      * 
@@ -164,7 +238,7 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
         try
         {
             ArrayQueue<T> clone = (ArrayQueue<T>) super.clone();
-            System.arraycopy(data, 0, clone.data, 0, data.length);
+            clone.data = data.clone();
             return clone;
         }
         catch (CloneNotSupportedException e)
@@ -176,16 +250,38 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
     @Override
     public String toString()
     {
-        if (manyItems == 0)
+        StringBuilder res = new StringBuilder();
+        try
         {
-            return "<>";
+            writeTo(res);
         }
-        String res = "<";
-        for (int i = rear; i != front ; i = (i - 1 + data.length) % data.length)
+        catch (IOException e)
         {
-            res += data[i] += ", ";
+            throw new UncheckedIOException(e);
         }
-        return res + data[front] + ">";
+        return res.toString();
+    }
+
+    /**
+     * Writes the queue as text, from the back of the queue to the front,
+     * in the same form as toString, without building it as one string first.
+     * 
+     * @param out where to write the text
+     * @throws IOException if out throws one
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        out.append('<');
+        for (int i = manyItems - 1; i >= 0; i--)
+        {
+            int index = front + i;
+            out.append(String.valueOf(data[index < data.length ? index : index - data.length]));
+            if (i > 0)
+            {
+                out.append(", ");
+            }
+        }
+        out.append('>');
     }
 
     @Override
@@ -194,6 +290,92 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
         return new AQIterator(front);
     }
 
+    /**
+     * Creates a spliterator that splits the queue by position, for parallel streams.
+     * The queue must not be modified while the spliterator is in use.
+     * 
+     * @return a sized spliterator over the queue from front to back
+     */
+    @Override
+    public Spliterator<T> spliterator()
+    {
+        return new AQSpliterator(data, front, 0, manyItems);
+    }
+
+    /*
+     * The following methods save the queue as a binary snapshot and load it back.
+     * Elements are converted to bytes by an ElementCodec.
+     */
+
+    /**
+     * Writes a snapshot of the queue to a channel.
+     * 
+     * @param out the channel to write to
+     * @param codec converts each element to bytes
+     * @throws IOException if writing fails
+     */
+    public void writeSnapshot(WritableByteChannel out, ElementCodec<? super T> codec)
+        throws IOException
+    {
+        QueueSnapshots.write(this, size(), codec, out);
+    }
+
+    /**
+     * Writes a snapshot of the queue to a buffer.
+     * 
+     * @param out the buffer to write to
+     * @param codec converts each element to bytes
+     * @throws java.nio.BufferOverflowException if the snapshot does not fit in out
+     */
+    public void writeSnapshot(ByteBuffer out, ElementCodec<? super T> codec)
+    {
+        QueueSnapshots.write(this, size(), codec, out);
+    }
+
+    /**
+     * Creates a queue from a snapshot in a channel.
+     * 
+     * @param in the channel to read from
+     * @param codec converts bytes back to elements
+     * @return a queue with the elements of the snapshot
+     * @throws IOException if reading fails or in does not hold a snapshot
+     */
+    public static <T> ArrayQueue<T> readSnapshot(ReadableByteChannel in, ElementCodec<T> codec)
+        throws IOException
+    {
+        return fromArray(QueueSnapshots.read(in, codec));
+    }
+
+    /**
+     * Creates a queue from a snapshot in a buffer.
+     * 
+     * @param in the buffer to read from
+     * @param codec converts bytes back to elements
+     * @return a queue with the elements of the snapshot
+     * @throws IOException if in does not hold a snapshot
+     */
+    public static <T> ArrayQueue<T> readSnapshot(ByteBuffer in, ElementCodec<T> codec)
+        throws IOException
+    {
+        return fromArray(QueueSnapshots.read(in, codec));
+    }
+
+    /**
+     * Creates a queue that uses an array as its data, front first.
+     * 
+     * @param items the elements, front first, filling the array
+     * @return a full queue holding items
+     */
+    private static <T> ArrayQueue<T> fromArray(Object[] items)
+    {
+        ArrayQueue<T> queue = new ArrayQueue<>(0);
+        queue.data = items;
+        queue.manyItems = items.length;
+        queue.front = 0;
+        queue.rear = items.length - 1;
+        return queue;
+    }
+
     /*
      * The following three methods are specific to the array implementation.
      * One could argue that they should be private so that users do not know the
@@ -226,12 +408,7 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
     {
         if (capacity > getCapacity())
         {
-            Object[] newData = new Object[capacity];
-            for (int i = 0; i < data.length; i++)
-            {
-                newData[i] = data[i];
-            }
-            data = newData;
+            resize(capacity);
         }
     }
 
@@ -242,12 +419,27 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
      */
     public void trimToSize()
     {
-        Object[] newData = new Object[manyItems];
+        resize(manyItems);
+    }
+
+    /**
+     * Moves the items into a new array of the given capacity.
+     * The queue may have wrapped around the end of the old array,
+     * so items are copied in queue order and the front moves to index 0.
+     * 
+     * @param capacity the length of the new array, at least manyItems
+     */
+    private void resize(int capacity)
+    {
+        Object[] newData = new Object[capacity];
         for (int i = 0; i < manyItems; i++)
         {
-            newData[i] = data[i];
+            newData[i] = data[(front + i) % data.length];
         }
         data = newData;
+        front = 0;
+        // When empty, rear sits just before front so both ends stay in bounds.
+        rear = manyItems > 0 ? manyItems - 1 : capacity - 1;
     }
 
     /**
@@ -264,6 +456,12 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
          */
         private int currIndex;
 
+        /**
+         * The number of items returned so far.
+         * Needed because currIndex alone cannot tell a full array from an empty one.
+         */
+        private int returned;
+
         /**
          * Creates a new iterator starting at the beginning of the queue.
          * 
@@ -272,12 +470,13 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
         public AQIterator(int front)
         {
             currIndex = front;
+            returned = 0;
         }
 
         @Override
         public boolean hasNext()
         {
-            return currIndex != (rear + 1) % data.length;
+            return returned < manyItems;
         }
 
         @Override
@@ -289,9 +488,122 @@ public class ArrayQueue<T> implements Cloneable, Iterable<T>
             }
             @SuppressWarnings("unchecked")
             T retValue = (T) data[currIndex];
-            currIndex = (currIndex + 1) % data.length;
+            if (++currIndex == data.length)
+            {
+                currIndex = 0;
+            }
+            returned++;
             return retValue;
         }
         
     }
+
+    /**
+     * Spliterator over positions in the queue, counted from the front.
+     * Position i is at data[front + i], less data.length if that runs off the end,
+     * so splitting is just halving the range of positions.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private class AQSpliterator implements Spliterator<T>
+    {
+        /**
+         * The array of the queue when the spliterator was created.
+         */
+        private final Object[] items;
+
+        /**
+         * The index of the front of the queue in items.
+         */
+        private final int start;
+
+        /**
+         * The position of the next item to return.
+         */
+        private int origin;
+
+        /**
+         * The position after the last item to return.
+         */
+        private final int fence;
+
+        /**
+         * Creates a new spliterator over a range of positions.
+         * 
+         * @param items the array of the queue
+         * @param start the index of the front of the queue in items
+         * @param origin the first position to return
+         * @param fence the position after the last to return
+         */
+        public AQSpliterator(Object[] items, int start, int origin, int fence)
+        {
+            this.items = items;
+            this.start = start;
+            this.origin = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            if (origin >= fence)
+            {
+                return false;
+            }
+            int i = start + origin++;
+            action.accept((T) items[i < items.length ? i : i - items.length]);
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action)
+        {
+            // The range is at most two runs of the array: up to the end, then from 0.
+            int from = start + origin;
+            int to = start + fence;
+            origin = fence;
+            if (from >= items.length)
+            {
+                from -= items.length;
+                to -= items.length;
+            }
+            int firstEnd = Math.min(to, items.length);
+            for (int i = from; i < firstEnd; i++)
+            {
+                action.accept((T) items[i]);
+            }
+            for (int i = 0; i < to - items.length; i++)
+            {
+                action.accept((T) items[i]);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            int mid = (origin + fence) >>> 1;
+            if (mid <= origin)
+            {
+                return null;
+            }
+            AQSpliterator prefix = new AQSpliterator(items, start, origin, mid);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return fence - origin;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,481 @@
+package storage;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Queue Abstract Data Type (ADT) of longs, stored compressed in blocks.
+ * 
+ * Longs are enqueued into a plain array. Once BLOCK_SIZE of them are waiting,
+ * they are encoded as one block: the first long, then the difference from each
+ * long to the next, all as zigzag varints. Mostly increasing ids and timestamps
+ * take one or two bytes each this way instead of eight. The front block is
+ * decoded all at once when dequeueing reaches it.
+ * 
+ * Every block starts with a byte holding its length, so iteration can skip
+ * whole blocks without decoding them.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class CompressedLongQueue implements Cloneable, Iterable<Long>
+{
+    /**
+     * The number of longs encoded together in each block.
+     * At most 255, so the length fits in the first byte.
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    /**
+     * The most bytes a zigzag varint of a long can take.
+     */
+    private static final int MAX_VARINT_BYTES = 10;
+
+    /**
+     * Encoded blocks between the front and the back of the queue, oldest first.
+     * Blocks are never modified once encoded.
+     */
+    private ArrayQueue<byte[]> blocks;
+
+    /**
+     * The decoded block at the front of the queue.
+     */
+    private long[] head;
+
+    /**
+     * The index in head of the front of the queue.
+     */
+    private int headIndex;
+
+    /**
+     * The number of longs in head.
+     */
+    private int headCount;
+
+    /**
+     * Longs at the back of the queue, not yet encoded.
+     */
+    private long[] tail;
+
+    /**
+     * The number of longs in tail.
+     */
+    private int tailCount;
+
+    /**
+     * Tracks the number of items in the queue.
+     */
+    private int manyItems;
+
+    /**
+     * Creates a new empty queue.
+     */
+    public CompressedLongQueue()
+    {
+        blocks = new ArrayQueue<>();
+        head = new long[BLOCK_SIZE];
+        tail = new long[BLOCK_SIZE];
+        headIndex = headCount = tailCount = 0;
+        manyItems = 0;
+    }
+
+    /**
+     * Creates a new queue with provided data.
+     * The data at the beginning of the list will be at the front of the queue.
+     * 
+     * @param input the data to add to the queue
+     */
+    public CompressedLongQueue(List<Long> input)
+    {
+        this();
+        for (long item : input)
+        {
+            enqueue(item);
+        }
+    }
+
+    /**
+     * Retrieves the element at the front of the queue.
+     * The element is NOT removed from the queue.
+     * 
+     * @return the element at the front of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    public long examine()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        fillHead();
+        return head[headIndex];
+    }
+
+    /**
+     * Retrieves an element from the front of the queue.
+     * The element retrieved is removed from the queue.
+     * 
+     * @return the element at the front of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    public long dequeue()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        fillHead();
+        manyItems--;
+        return head[headIndex++];
+    }
+
+    /**
+     * Adds an element to the back of the queue.
+     * 
+     * @param item the element to add
+     */
+    public void enqueue(long item)
+    {
+        if (tailCount == BLOCK_SIZE)
+        {
+            blocks.enqueue(encode(tail, tailCount));
+            tailCount = 0;
+        }
+        tail[tailCount++] = item;
+        manyItems++;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     * 
+     * @return true if the queue is empty, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return manyItems == 0;
+    }
+
+    /**
+     * Getter for the number of elements in the queue.
+     * 
+     * @return the number of elements in the queue.
+     */
+    public int size()
+    {
+        return manyItems;
+    }
+
+    @Override
+    public CompressedLongQueue clone()
+    {
+        try
+        {
+            CompressedLongQueue clone = (CompressedLongQueue) super.clone();
+            // The encoded blocks themselves are never modified, so they can be shared.
+            clone.blocks = blocks.clone();
+            clone.head = head.clone();
+            clone.tail = tail.clone();
+            return clone;
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new RuntimeException("Clone is not supported");
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        long[] items = new long[manyItems];
+        PrimitiveIterator.OfLong it = iterator();
+        for (int i = 0; i < items.length; i++)
+        {
+            items[i] = it.nextLong();
+        }
+        StringBuilder res = new StringBuilder("<");
+        for (int i = items.length - 1; i >= 0; i--)
+        {
+            res.append(items[i]);
+            if (i > 0)
+            {
+                res.append(", ");
+            }
+        }
+        return res.append('>').toString();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator()
+    {
+        return new CLQIterator();
+    }
+
+    /**
+     * Creates an iterator that starts partway through the queue.
+     * Whole blocks before the start are skipped without being decoded.
+     * 
+     * @param skip the number of elements from the front to skip
+     * @return an iterator over the rest of the queue
+     * @throws IllegalArgumentException if skip is negative or more than size()
+     */
+    public PrimitiveIterator.OfLong iterator(int skip)
+    {
+        if (skip < 0 || skip > manyItems)
+        {
+            throw new IllegalArgumentException("Cannot skip " + skip + " of " + manyItems);
+        }
+        CLQIterator it = new CLQIterator();
+        it.skip(skip);
+        return it;
+    }
+
+    /**
+     * Makes sure head holds the front of the queue.
+     * Decodes the next block, or takes the tail if no blocks are left.
+     * Only call when the queue is not empty.
+     */
+    private void fillHead()
+    {
+        if (headIndex < headCount)
+        {
+            return;
+        }
+        if (!blocks.isEmpty())
+        {
+            headCount = decode(blocks.dequeue(), head);
+        }
+        else
+        {
+            // Hand the tail to the front rather than encoding it just to decode it.
+            long[] swap = head;
+            head = tail;
+            tail = swap;
+            headCount = tailCount;
+            tailCount = 0;
+        }
+        headIndex = 0;
+    }
+
+    /**
+     * Encodes longs as a block.
+     * 
+     * @param items the longs to encode
+     * @param count the number of longs at the start of items to encode
+     * @return the block, exactly as long as needed
+     */
+    private static byte[] encode(long[] items, int count)
+    {
+        byte[] block = new byte[1 + MAX_VARINT_BYTES * count];
+        block[0] = (byte) count;
+        int length = 1;
+        long previous = 0;
+        for (int i = 0; i < count; i++)
+        {
+            long delta = items[i] - previous;
+            length = writeVarint(block, length, (delta << 1) ^ (delta >> 63));
+            previous = items[i];
+        }
+        return Arrays.copyOf(block, length);
+    }
+
+    /**
+     * Decodes a block.
+     * 
+     * @param block the block to decode
+     * @param items filled in with the decoded longs
+     * @return the number of longs decoded
+     */
+    private static int decode(byte[] block, long[] items)
+    {
+        int count = 0;
+        int pos = 1;
+        int length = blockLength(block);
+        long previous = 0;
+        while (count < length)
+        {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = block[pos++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            items[count++] = previous;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the number of longs in a block without decoding it.
+     * 
+     * @param block the block to read
+     * @return the number of longs in the block
+     */
+    private static int blockLength(byte[] block)
+    {
+        return block[0] & 0xFF;
+    }
+
+    /**
+     * Writes an unsigned varint: seven bits per byte, high bit set on all but the last.
+     * 
+     * @param block where to write
+     * @param pos the index to write at
+     * @param value the value to write, treated as unsigned
+     * @return the index after the last byte written
+     */
+    private static int writeVarint(byte[] block, int pos, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            block[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        block[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * Iterator over the queue from front to back.
+     * Decodes one block at a time into its own buffer.
+     * Does not implement remove.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private class CLQIterator implements PrimitiveIterator.OfLong
+    {
+        /**
+         * The blocks not yet reached.
+         */
+        private Iterator<byte[]> nextBlocks;
+
+        /**
+         * The longs currently being returned.
+         */
+        private long[] current;
+
+        /**
+         * The index in current of the next long to return.
+         */
+        private int index;
+
+        /**
+         * The number of longs in current.
+         */
+        private int count;
+
+        /**
+         * Whether the tail has been reached.
+         */
+        private boolean inTail;
+
+        /**
+         * Creates a new iterator starting at the front of the queue.
+         */
+        public CLQIterator()
+        {
+            nextBlocks = blocks.iterator();
+            current = head;
+            index = headIndex;
+            count = headCount;
+            inTail = false;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return index < count || nextBlocks.hasNext() || (!inTail && tailCount > 0);
+        }
+
+        @Override
+        public long nextLong()
+        {
+            if (index == count)
+            {
+                advance();
+            }
+            return current[index++];
+        }
+
+        /**
+         * Skips elements, stepping over whole blocks by their length alone.
+         * 
+         * @param skip the number of elements to skip, at most the number left
+         */
+        private void skip(int skip)
+        {
+            while (skip > count - index)
+            {
+                skip -= count - index;
+                index = count;
+                byte[] block = null;
+                while (!inTail && nextBlocks.hasNext())
+                {
+                    block = nextBlocks.next();
+                    if (blockLength(block) > skip)
+                    {
+                        break;
+                    }
+                    skip -= blockLength(block);
+                    block = null;
+                }
+                if (block != null)
+                {
+                    startBlock(block);
+                }
+                else if (skip > 0)
+                {
+                    advance();
+                }
+            }
+            index += skip;
+        }
+
+        /**
+         * Moves on to the next block, or the tail after the last block.
+         * 
+         * @throws NoSuchElementException if there is nothing left
+         */
+        private void advance()
+        {
+            if (nextBlocks.hasNext())
+            {
+                startBlock(nextBlocks.next());
+            }
+            else if (!inTail && tailCount > 0)
+            {
+                inTail = true;
+                current = tail;
+                index = 0;
+                count = tailCount;
+            }
+            else
+            {
+                throw new NoSuchElementException();
+            }
+        }
+
+        /**
+         * Decodes a block into this iterator's own buffer.
+         * 
+         * @param block the block to start returning
+         */
+        private void startBlock(byte[] block)
+        {
+            if (current == head)
+            {
+                current = new long[BLOCK_SIZE];
+            }
+            count = decode(block, current);
+            index = 0;
+        }
+    }
+}
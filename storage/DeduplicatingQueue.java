@@ -0,0 +1,382 @@
+package storage;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Queue Abstract Data Type (ADT) that holds each key at most once.
+ * 
+ * Every element is a key and a value. Enqueueing a key that is already in the
+ * queue does not add it again: by default the new value is dropped, or with
+ * replaceValues the new value replaces the old one but keeps its place in line.
+ * 
+ * Elements sit in a ring of arrays, each numbered by the order it arrived in.
+ * Pending keys are found through an open-addressing hash table that maps each
+ * key to its number, held in parallel arrays rather than nodes. Collisions are
+ * resolved by linear probing, and removal shifts later entries back instead of
+ * leaving markers, so the table never fills with dead entries.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class DeduplicatingQueue<K, V> implements Cloneable, Iterable<V>
+{
+    /**
+     * The capacity of the arrays to use when none is provided.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Keys in the queue. The key numbered n is at keys[n & (keys.length - 1)].
+     */
+    private Object[] keys;
+
+    /**
+     * Values in the queue, at the same index as their key.
+     */
+    private Object[] values;
+
+    /**
+     * The number of the element at the front of the queue.
+     */
+    private long front;
+
+    /**
+     * The number the next element enqueued will get.
+     */
+    private long next;
+
+    /**
+     * Hash table of the keys in the queue, null where empty.
+     * Always at least twice as long as the queue.
+     */
+    private Object[] tableKeys;
+
+    /**
+     * The number of the element with the key at the same index in tableKeys.
+     */
+    private long[] tableNumbers;
+
+    /**
+     * Whether enqueueing a pending key replaces its value.
+     */
+    private final boolean replaceValues;
+
+    /**
+     * Creates a new empty queue that drops duplicate keys.
+     */
+    public DeduplicatingQueue()
+    {
+        this(false);
+    }
+
+    /**
+     * Creates a new empty queue.
+     * 
+     * @param replaceValues true to replace the value of a pending key when it is
+     *        enqueued again, false to keep the first value
+     */
+    public DeduplicatingQueue(boolean replaceValues)
+    {
+        keys = new Object[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+        front = next = 0;
+        tableKeys = new Object[DEFAULT_CAPACITY * 2];
+        tableNumbers = new long[DEFAULT_CAPACITY * 2];
+        this.replaceValues = replaceValues;
+    }
+
+    /**
+     * Retrieves the value at the front of the queue.
+     * The element is NOT removed from the queue.
+     * 
+     * @return the value at the front of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public V examine()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return (V) values[index(front)];
+    }
+
+    /**
+     * Retrieves the key at the front of the queue.
+     * The element is NOT removed from the queue.
+     * 
+     * @return the key at the front of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public K examineKey()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return (K) keys[index(front)];
+    }
+
+    /**
+     * Retrieves an element from the front of the queue.
+     * The element retrieved is removed from the queue, so its key can be enqueued again.
+     * 
+     * @return the value at the front of the queue
+     * @throws NoSuchElementException if there are no elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public V dequeue()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        int i = index(front);
+        V ret = (V) values[i];
+        removeFromTable(findSlot(keys[i]));
+        keys[i] = values[i] = null;
+        front++;
+        return ret;
+    }
+
+    /**
+     * Adds an element to the back of the queue, unless its key is already in the queue.
+     * 
+     * @param key identifies the element
+     * @param value the value to add
+     * @return true if the element was added, false if its key was already pending
+     * @throws NullPointerException if key is null
+     */
+    public boolean enqueue(K key, V value)
+    {
+        Objects.requireNonNull(key);
+        int slot = findSlot(key);
+        if (tableKeys[slot] != null)
+        {
+            if (replaceValues)
+            {
+                values[index(tableNumbers[slot])] = value;
+            }
+            return false;
+        }
+        if (size() == keys.length)
+        {
+            grow();
+            slot = findSlot(key);
+        }
+        int i = index(next);
+        keys[i] = key;
+        values[i] = value;
+        tableKeys[slot] = key;
+        tableNumbers[slot] = next;
+        next++;
+        return true;
+    }
+
+    /**
+     * Checks if an element with a key is in the queue.
+     * 
+     * @param key the key to look for
+     * @return true if the key is pending, false otherwise
+     */
+    public boolean contains(K key)
+    {
+        return key != null && tableKeys[findSlot(key)] != null;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     * 
+     * @return true if the queue is empty, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return front == next;
+    }
+
+    /**
+     * Getter for the number of elements in the queue.
+     * 
+     * @return the number of elements in the queue.
+     */
+    public int size()
+    {
+        return (int) (next - front);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DeduplicatingQueue<K, V> clone()
+    {
+        try
+        {
+            DeduplicatingQueue<K, V> clone = (DeduplicatingQueue<K, V>) super.clone();
+            clone.keys = keys.clone();
+            clone.values = values.clone();
+            clone.tableKeys = tableKeys.clone();
+            clone.tableNumbers = tableNumbers.clone();
+            return clone;
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new RuntimeException("Clone is not supported");
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder res = new StringBuilder("<");
+        for (long n = next - 1; n >= front; n--)
+        {
+            res.append(values[index(n)]);
+            if (n > front)
+            {
+                res.append(", ");
+            }
+        }
+        return res.append('>').toString();
+    }
+
+    @Override
+    public Iterator<V> iterator()
+    {
+        return new DQIterator();
+    }
+
+    /**
+     * Finds where an element's number sits in the keys and values arrays.
+     * 
+     * @param number the number of the element
+     * @return the index into keys and values
+     */
+    private int index(long number)
+    {
+        return (int) number & (keys.length - 1);
+    }
+
+    /**
+     * Finds the slot in the table where a key's hash probing starts.
+     * 
+     * @param key the key to hash
+     * @return the first slot to probe
+     */
+    private int home(Object key)
+    {
+        // Spread the bits, since hashCode is often poor in its low bits.
+        int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (tableKeys.length - 1);
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it would go.
+     * 
+     * @param key the key to look for
+     * @return the slot holding key, or the empty slot that ended the search
+     */
+    private int findSlot(Object key)
+    {
+        int slot = home(key);
+        while (tableKeys[slot] != null && !tableKeys[slot].equals(key))
+        {
+            slot = (slot + 1) & (tableKeys.length - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot in the table, moving later entries back so every key
+     * is still reachable by probing from its home slot.
+     * 
+     * @param slot the slot to empty
+     */
+    private void removeFromTable(int slot)
+    {
+        int mask = tableKeys.length - 1;
+        for (int next = (slot + 1) & mask; tableKeys[next] != null; next = (next + 1) & mask)
+        {
+            int home = home(tableKeys[next]);
+            // Move the entry back unless its home is after the gap, cyclically.
+            boolean homeAfterGap = slot <= next
+                ? slot < home && home <= next
+                : slot < home || home <= next;
+            if (!homeAfterGap)
+            {
+                tableKeys[slot] = tableKeys[next];
+                tableNumbers[slot] = tableNumbers[next];
+                slot = next;
+            }
+        }
+        tableKeys[slot] = null;
+    }
+
+    /**
+     * Doubles the arrays and the table, keeping every element's number.
+     */
+    private void grow()
+    {
+        Object[] newKeys = new Object[keys.length * 2];
+        Object[] newValues = new Object[values.length * 2];
+        for (long n = front; n < next; n++)
+        {
+            int from = index(n);
+            int to = (int) n & (newKeys.length - 1);
+            newKeys[to] = keys[from];
+            newValues[to] = values[from];
+        }
+        keys = newKeys;
+        values = newValues;
+        tableKeys = new Object[keys.length * 2];
+        tableNumbers = new long[keys.length * 2];
+        for (long n = front; n < next; n++)
+        {
+            int slot = findSlot(keys[index(n)]);
+            tableKeys[slot] = keys[index(n)];
+            tableNumbers[slot] = n;
+        }
+    }
+
+    /**
+     * Simple inner iterator class over the values from front to back.
+     * Does not implement remove.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private class DQIterator implements Iterator<V>
+    {
+        /**
+         * The number of the next element to return.
+         */
+        private long current;
+
+        /**
+         * Creates a new iterator starting at the front of the queue.
+         */
+        public DQIterator()
+        {
+            current = front;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return current < next;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return (V) values[index(current++)];
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts queue elements to and from bytes, for queue snapshots.
+ * 
+ * Codecs for longs, ints and strings are provided. None of them accept null elements.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public interface ElementCodec<T>
+{
+    /**
+     * Longs as 8 big-endian bytes.
+     */
+    ElementCodec<Long> LONGS = new ElementCodec<>()
+    {
+        @Override
+        public int maxSize(Long item)
+        {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long item, ByteBuffer out)
+        {
+            out.putLong(item);
+        }
+
+        @Override
+        public Long decode(ByteBuffer in)
+        {
+            return in.getLong();
+        }
+    };
+
+    /**
+     * Ints as 4 big-endian bytes.
+     */
+    ElementCodec<Integer> INTEGERS = new ElementCodec<>()
+    {
+        @Override
+        public int maxSize(Integer item)
+        {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(Integer item, ByteBuffer out)
+        {
+            out.putInt(item);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer in)
+        {
+            return in.getInt();
+        }
+    };
+
+    /**
+     * Strings as their length in bytes, then their UTF-8 bytes.
+     */
+    ElementCodec<String> STRINGS = new ElementCodec<>()
+    {
+        @Override
+        public int maxSize(String item)
+        {
+            // No char takes more than 3 bytes in UTF-8; surrogate pairs take 4 for 2 chars.
+            return Integer.BYTES + 3 * item.length();
+        }
+
+        @Override
+        public void encode(String item, ByteBuffer out)
+        {
+            byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length).put(bytes);
+        }
+
+        @Override
+        public String decode(ByteBuffer in) throws IOException
+        {
+            int length = in.getInt();
+            if (length < 0)
+            {
+                throw new IOException("Corrupt snapshot: string of length " + length);
+            }
+            // Check before allocating, so a corrupt length cannot ask for a huge array.
+            if (length > in.remaining())
+            {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Gets the most bytes encode could write for an element.
+     * Used to make sure there is room before encoding, so it should be cheap.
+     * 
+     * @param item the element
+     * @return an upper bound on the bytes encode writes for item
+     */
+    int maxSize(T item);
+
+    /**
+     * Writes an element at the position of a buffer.
+     * 
+     * @param item the element to write
+     * @param out the buffer to write to, with at least maxSize(item) bytes remaining
+     */
+    void encode(T item, ByteBuffer out);
+
+    /**
+     * Reads an element from the position of a buffer.
+     * 
+     * @param in the buffer to read from
+     * @return the element read
+     * @throws BufferUnderflowException if the buffer ends before the element does,
+     *         without allocating space for more than the buffer holds
+     * @throws IOException if the bytes cannot be an element
+     */
+    T decode(ByteBuffer in) throws IOException;
+}
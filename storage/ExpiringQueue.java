@@ -0,0 +1,470 @@
+package storage;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+
+/**
+ * Queue Abstract Data Type (ADT) whose elements expire.
+ * 
+ * Every element gets an expiry time when it is enqueued. Expired elements at the
+ * front are dropped when examining or dequeueing, so consumers only ever see live
+ * elements. The clock is read once per operation and reused for every element that
+ * operation checks, and a run of expired elements is cleared all at once. By default
+ * the clock is a CoarseClock, so reading it is a field read rather than a system call.
+ * 
+ * An expired element behind a live one stays until it reaches the front, or until
+ * sweep() is called. A sweeper thread can call sweep() regularly so memory is
+ * reclaimed even when nothing is dequeueing. The sweeper only holds the queue
+ * weakly, so a queue that is no longer used can be collected and its sweeper
+ * ends, but stopSweeper() stops it straight away.
+ * 
+ * Every method is synchronized, since the sweeper works on the queue from its own thread.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class ExpiringQueue<T>
+{
+    /**
+     * The capacity of the arrays to use when none is provided.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * How many milliseconds the default clock lags behind the real time at most.
+     */
+    public static final long DEFAULT_CLOCK_RESOLUTION = 10;
+
+    /**
+     * The elements, starting at items[front] and wrapping around.
+     * The capacity is always a power of two, so wrapping is a mask.
+     */
+    private Object[] items;
+
+    /**
+     * When each element expires, at the same index as the element.
+     */
+    private long[] expiries;
+
+    /**
+     * The index of the front element.
+     */
+    private int front;
+
+    /**
+     * Tracks the number of items in the queue, including expired ones not yet dropped.
+     */
+    private int manyItems;
+
+    /**
+     * How long an element lives when no time to live is given.
+     */
+    private final long defaultTtl;
+
+    /**
+     * Reads the current time, in the same unit as the times to live.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The time the clock read at the start of the current operation.
+     */
+    private long now;
+
+    /**
+     * The number of elements dropped because they expired.
+     */
+    private long dropped;
+
+    /**
+     * The sweeper thread, or null if none is running.
+     */
+    private Thread sweeper;
+
+    /**
+     * Creates a new empty queue timed in milliseconds by a shared CoarseClock,
+     * so times are up to DEFAULT_CLOCK_RESOLUTION milliseconds behind.
+     * 
+     * @param defaultTtl how many milliseconds an element lives when none is given
+     * @throws IllegalArgumentException if defaultTtl is negative
+     */
+    public ExpiringQueue(long defaultTtl)
+    {
+        this(defaultTtl, DefaultClock.CLOCK);
+    }
+
+    /**
+     * Creates a new empty queue.
+     * 
+     * @param defaultTtl how long an element lives when none is given
+     * @param clock reads the current time, in the same unit as defaultTtl
+     * @throws IllegalArgumentException if defaultTtl is negative
+     */
+    public ExpiringQueue(long defaultTtl, LongSupplier clock)
+    {
+        checkTtl(defaultTtl);
+        items = new Object[DEFAULT_CAPACITY];
+        expiries = new long[DEFAULT_CAPACITY];
+        front = 0;
+        manyItems = 0;
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+        dropped = 0;
+    }
+
+    /**
+     * Retrieves the live element at the front of the queue, dropping expired ones before it.
+     * The element is NOT removed from the queue.
+     * 
+     * @return the element at the front of the queue
+     * @throws NoSuchElementException if there are no live elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T examine()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        return (T) items[front];
+    }
+
+    /**
+     * Retrieves the live element at the front of the queue, dropping expired ones before it.
+     * The element retrieved is removed from the queue.
+     * 
+     * @return the element at the front of the queue
+     * @throws NoSuchElementException if there are no live elements on the queue
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T dequeue()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        T ret = (T) items[front];
+        items[front] = null;
+        front = (front + 1) & (items.length - 1);
+        manyItems--;
+        return ret;
+    }
+
+    /**
+     * Adds an element to the back of the queue that lives for the default time.
+     * 
+     * @param item the element to add
+     */
+    public synchronized void enqueue(T item)
+    {
+        enqueue(item, defaultTtl);
+    }
+
+    /**
+     * Adds an element to the back of the queue.
+     * 
+     * @param item the element to add
+     * @param ttl how long the element lives, or Long.MAX_VALUE to never expire
+     * @throws IllegalArgumentException if ttl is negative
+     */
+    public synchronized void enqueue(T item, long ttl)
+    {
+        checkTtl(ttl);
+        if (manyItems == items.length)
+        {
+            resize(items.length * 2);
+        }
+        int rear = (front + manyItems) & (items.length - 1);
+        items[rear] = item;
+        long start = clock.getAsLong();
+        // Saturate rather than overflow, so a huge ttl means never rather than already.
+        expiries[rear] = start > Long.MAX_VALUE - ttl ? Long.MAX_VALUE : start + ttl;
+        manyItems++;
+    }
+
+    /**
+     * Checks if the queue has no live elements, dropping expired ones at the front.
+     * 
+     * @return true if the queue is empty, false otherwise.
+     */
+    public synchronized boolean isEmpty()
+    {
+        now = clock.getAsLong();
+        dropExpiredFront();
+        return manyItems == 0;
+    }
+
+    /**
+     * Getter for the number of elements in the queue.
+     * Expired elements that have not been dropped yet are counted.
+     * 
+     * @return the number of elements in the queue.
+     */
+    public synchronized int size()
+    {
+        return manyItems;
+    }
+
+    /**
+     * Getter for the number of elements dropped because they expired.
+     * 
+     * @return the number of expired elements dropped
+     */
+    public synchronized long getDropped()
+    {
+        return dropped;
+    }
+
+    /**
+     * Drops every expired element, wherever it is in the queue,
+     * and shrinks the arrays if they are mostly empty.
+     * Takes time proportional to the size of the queue.
+     */
+    public synchronized void sweep()
+    {
+        now = clock.getAsLong();
+        int mask = items.length - 1;
+        int kept = 0;
+        for (int i = 0; i < manyItems; i++)
+        {
+            int from = (front + i) & mask;
+            if (expiries[from] > now)
+            {
+                int to = (front + kept++) & mask;
+                items[to] = items[from];
+                expiries[to] = expiries[from];
+            }
+        }
+        for (int i = kept; i < manyItems; i++)
+        {
+            items[(front + i) & mask] = null;
+        }
+        dropped += manyItems - kept;
+        manyItems = kept;
+        if (items.length > DEFAULT_CAPACITY && manyItems < items.length / 4)
+        {
+            resize(Math.max(DEFAULT_CAPACITY, items.length / 2));
+        }
+    }
+
+    /**
+     * Starts a daemon thread that calls sweep() regularly.
+     * Does nothing if one is already running.
+     * The thread ends by itself once the queue has been garbage collected.
+     * 
+     * @param periodMillis how many milliseconds to wait between sweeps
+     */
+    public synchronized void startSweeper(long periodMillis)
+    {
+        if (sweeper != null)
+        {
+            return;
+        }
+        sweeper = new Thread(new Sweeper(this, periodMillis), "ExpiringQueue sweeper");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+
+    /**
+     * Stops the sweeper thread, if one is running.
+     */
+    public synchronized void stopSweeper()
+    {
+        if (sweeper != null)
+        {
+            sweeper.interrupt();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Checks that a time to live is usable.
+     * 
+     * @param ttl the time to live
+     * @throws IllegalArgumentException if ttl is negative
+     */
+    private static void checkTtl(long ttl)
+    {
+        if (ttl < 0)
+        {
+            throw new IllegalArgumentException("Time to live cannot be negative: " + ttl);
+        }
+    }
+
+    /**
+     * Drops the run of expired elements at the front of the queue.
+     * Finds where the run ends first, then clears it in one or two fills.
+     */
+    private void dropExpiredFront()
+    {
+        int mask = items.length - 1;
+        int count = 0;
+        while (count < manyItems && expiries[(front + count) & mask] <= now)
+        {
+            count++;
+        }
+        if (count == 0)
+        {
+            return;
+        }
+        int end = front + count;
+        if (end <= items.length)
+        {
+            Arrays.fill(items, front, end, null);
+        }
+        else
+        {
+            Arrays.fill(items, front, items.length, null);
+            Arrays.fill(items, 0, end - items.length, null);
+        }
+        front = end & mask;
+        manyItems -= count;
+        dropped += count;
+    }
+
+    /**
+     * Moves the elements into new arrays, with the front at index 0.
+     * 
+     * @param capacity the new capacity, a power of two at least manyItems
+     */
+    private void resize(int capacity)
+    {
+        Object[] newItems = new Object[capacity];
+        long[] newExpiries = new long[capacity];
+        for (int i = 0; i < manyItems; i++)
+        {
+            int from = (front + i) & (items.length - 1);
+            newItems[i] = items[from];
+            newExpiries[i] = expiries[from];
+        }
+        items = newItems;
+        expiries = newExpiries;
+        front = 0;
+    }
+
+    /**
+     * Calls sweep() on a queue regularly until stopped or the queue is collected.
+     * Holds the queue weakly, so a running sweeper does not keep it alive.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private static class Sweeper implements Runnable
+    {
+        /**
+         * The queue to sweep.
+         */
+        private final WeakReference<ExpiringQueue<?>> queue;
+
+        /**
+         * How many milliseconds to wait between sweeps.
+         */
+        private final long periodMillis;
+
+        /**
+         * Creates a new sweeper.
+         * 
+         * @param queue the queue to sweep
+         * @param periodMillis how many milliseconds to wait between sweeps
+         */
+        public Sweeper(ExpiringQueue<?> queue, long periodMillis)
+        {
+            this.queue = new WeakReference<>(queue);
+            this.periodMillis = periodMillis;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    Thread.sleep(periodMillis);
+                    ExpiringQueue<?> target = queue.get();
+                    if (target == null)
+                    {
+                        return;
+                    }
+                    target.sweep();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // Stopped.
+            }
+        }
+    }
+
+    /**
+     * A clock in milliseconds that is read from a field rather than the system.
+     * A daemon thread refreshes the field every resolution milliseconds,
+     * so readings are cheap but up to that far behind.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    public static class CoarseClock implements LongSupplier
+    {
+        /**
+         * The time when the clock was last refreshed.
+         */
+        private volatile long now;
+
+        /**
+         * Creates a new clock and starts the thread that refreshes it.
+         * The thread runs for the life of the program.
+         * 
+         * @param resolution how many milliseconds apart to refresh the clock
+         * @throws IllegalArgumentException if resolution is not positive
+         */
+        public CoarseClock(long resolution)
+        {
+            if (resolution < 1)
+            {
+                throw new IllegalArgumentException("Resolution must be at least 1 ms");
+            }
+            now = System.currentTimeMillis();
+            Thread ticker = new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        Thread.sleep(resolution);
+                        now = System.currentTimeMillis();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // Stopped.
+                }
+            }, "ExpiringQueue clock");
+            ticker.setDaemon(true);
+            ticker.start();
+        }
+
+        @Override
+        public long getAsLong()
+        {
+            return now;
+        }
+    }
+
+    /**
+     * Holds the clock shared by queues that were not given one.
+     * Its thread is only started once such a queue is created.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private static class DefaultClock
+    {
+        /**
+         * The shared clock.
+         */
+        private static final CoarseClock CLOCK = new CoarseClock(DEFAULT_CLOCK_RESOLUTION);
+    }
+}
@@ -0,0 +1,351 @@
+package storage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Queue Abstract Data Type (ADT) that shares dequeues fairly between classes of elements,
+ * such as the tenants that enqueued them.
+ * 
+ * Each class has its own FIFO queue, and classes take turns by deficit round robin.
+ * At the start of its turn a class earns credit equal to its weight, and each
+ * element it hands out spends credit equal to that element's cost. Its turn ends
+ * when it cannot afford its next element, and any credit left over carries to its
+ * next turn. Only classes with elements wait for a turn, so choosing the next
+ * element never looks at idle classes. When every weight is at least the largest
+ * cost, each dequeue is O(1).
+ * 
+ * A class that fills up to its capacity rejects further elements,
+ * so one busy class cannot grow the queue without bound.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class FairQueue<C, T>
+{
+    /**
+     * The weight of a class that has not been configured.
+     */
+    public static final int DEFAULT_WEIGHT = 1;
+
+    /**
+     * The capacity of a class that has not been configured.
+     */
+    public static final int DEFAULT_CAPACITY = Integer.MAX_VALUE;
+
+    /**
+     * Every class seen so far.
+     */
+    private Map<C, Lane<T>> lanes;
+
+    /**
+     * The classes with elements, in turn order. The front class is taking its turn.
+     */
+    private ArrayQueue<Lane<T>> active;
+
+    /**
+     * How much credit each element costs.
+     */
+    private final ToIntFunction<? super T> cost;
+
+    /**
+     * Tracks the number of items in the queue.
+     */
+    private int manyItems;
+
+    /**
+     * Creates a new empty queue where every element costs 1,
+     * so a class's weight is how many elements it hands out per turn.
+     */
+    public FairQueue()
+    {
+        this(item -> 1);
+    }
+
+    /**
+     * Creates a new empty queue.
+     * 
+     * @param cost how much credit each element costs, at least 1
+     */
+    public FairQueue(ToIntFunction<? super T> cost)
+    {
+        lanes = new HashMap<>();
+        active = new ArrayQueue<>();
+        this.cost = cost;
+        manyItems = 0;
+    }
+
+    /**
+     * Sets the weight and capacity of a class.
+     * A class that has not been configured gets DEFAULT_WEIGHT and DEFAULT_CAPACITY.
+     * Shrinking the capacity below the current size rejects new elements
+     * but keeps the ones already there.
+     * 
+     * @param cls the class to configure
+     * @param weight the credit the class earns each turn
+     * @param capacity the most elements of the class the queue holds
+     * @throws IllegalArgumentException if weight or capacity is less than 1
+     */
+    public void configure(C cls, int weight, int capacity)
+    {
+        if (weight < 1 || capacity < 1)
+        {
+            throw new IllegalArgumentException("Weight and capacity must be at least 1");
+        }
+        Lane<T> lane = lane(cls);
+        lane.weight = weight;
+        lane.capacity = capacity;
+    }
+
+    /**
+     * Retrieves the element that will be dequeued next.
+     * The element is NOT removed from the queue.
+     * 
+     * @return the next element
+     * @throws NoSuchElementException if there are no elements on the queue
+     * @throws IllegalArgumentException if an element the queue looks at costs less than 1
+     */
+    public T examine()
+    {
+        return select().items.examine();
+    }
+
+    /**
+     * Retrieves the next element, taking classes in turn.
+     * The element retrieved is removed from the queue.
+     * 
+     * @return the next element
+     * @throws NoSuchElementException if there are no elements on the queue
+     * @throws IllegalArgumentException if an element the queue looks at costs less than 1
+     */
+    public T dequeue()
+    {
+        Lane<T> lane = select();
+        T item = lane.items.dequeue();
+        lane.deficit -= lane.frontCost;
+        lane.frontCost = 0;
+        lane.dequeued++;
+        manyItems--;
+        if (lane.items.isEmpty())
+        {
+            // An idle class keeps no credit, or it could save up for a burst.
+            active.dequeue();
+            lane.deficit = 0;
+            lane.inTurn = false;
+        }
+        return item;
+    }
+
+    /**
+     * Adds an element to the back of its class's queue, unless the class is full.
+     * 
+     * @param cls the class of the element
+     * @param item the element to add
+     * @return true if the element was added, false if its class was at capacity
+     */
+    public boolean enqueue(C cls, T item)
+    {
+        Lane<T> lane = lane(cls);
+        if (lane.items.size() >= lane.capacity)
+        {
+            lane.rejected++;
+            return false;
+        }
+        if (lane.items.isEmpty())
+        {
+            active.enqueue(lane);
+        }
+        lane.items.enqueue(item);
+        lane.enqueued++;
+        manyItems++;
+        return true;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     * 
+     * @return true if the queue is empty, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return manyItems == 0;
+    }
+
+    /**
+     * Getter for the number of elements in the queue.
+     * 
+     * @return the number of elements in the queue.
+     */
+    public int size()
+    {
+        return manyItems;
+    }
+
+    /**
+     * Getter for the number of elements of one class in the queue.
+     * 
+     * @param cls the class to count
+     * @return the number of elements of the class in the queue
+     */
+    public int size(C cls)
+    {
+        Lane<T> lane = lanes.get(cls);
+        return lane == null ? 0 : lane.items.size();
+    }
+
+    /**
+     * Getter for the number of elements of one class ever added.
+     * 
+     * @param cls the class to count
+     * @return the number of elements of the class enqueued
+     */
+    public long getEnqueued(C cls)
+    {
+        Lane<T> lane = lanes.get(cls);
+        return lane == null ? 0 : lane.enqueued;
+    }
+
+    /**
+     * Getter for the number of elements of one class ever removed.
+     * 
+     * @param cls the class to count
+     * @return the number of elements of the class dequeued
+     */
+    public long getDequeued(C cls)
+    {
+        Lane<T> lane = lanes.get(cls);
+        return lane == null ? 0 : lane.dequeued;
+    }
+
+    /**
+     * Getter for the number of elements of one class turned away at capacity.
+     * 
+     * @param cls the class to count
+     * @return the number of elements of the class rejected
+     */
+    public long getRejected(C cls)
+    {
+        Lane<T> lane = lanes.get(cls);
+        return lane == null ? 0 : lane.rejected;
+    }
+
+    /**
+     * Finds the class whose turn it is and that can afford its front element,
+     * ending the turns of classes that cannot.
+     * 
+     * @return the class to dequeue from, with the cost of its front element worked out
+     * @throws NoSuchElementException if there are no elements on the queue
+     * @throws IllegalArgumentException if a front element costs less than 1
+     */
+    private Lane<T> select()
+    {
+        if (isEmpty())
+        {
+            throw new NoSuchElementException();
+        }
+        while (true)
+        {
+            Lane<T> lane = active.examine();
+            if (!lane.inTurn)
+            {
+                lane.deficit += lane.weight;
+                lane.inTurn = true;
+            }
+            if (lane.frontCost == 0)
+            {
+                lane.frontCost = costOf(lane.items.examine());
+            }
+            if (lane.frontCost <= lane.deficit)
+            {
+                return lane;
+            }
+            lane.inTurn = false;
+            active.enqueue(active.dequeue());
+        }
+    }
+
+    /**
+     * Works out how much credit an element costs.
+     * A cost below 1 would let a class keep its turn forever, so it is refused.
+     * 
+     * @param item the element
+     * @return the cost of the element
+     * @throws IllegalArgumentException if the element costs less than 1
+     */
+    private int costOf(T item)
+    {
+        int itemCost = cost.applyAsInt(item);
+        if (itemCost < 1)
+        {
+            throw new IllegalArgumentException("Cost must be at least 1: " + itemCost);
+        }
+        return itemCost;
+    }
+
+    /**
+     * Gets the lane of a class, creating it if the class is new.
+     * 
+     * @param cls the class
+     * @return the lane of the class
+     */
+    private Lane<T> lane(C cls)
+    {
+        return lanes.computeIfAbsent(cls, c -> new Lane<>());
+    }
+
+    /**
+     * The queue, settings, turn state and counters of one class.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private static class Lane<T>
+    {
+        /**
+         * The elements of the class, in the order they were added.
+         */
+        private final ArrayQueue<T> items = new ArrayQueue<>();
+
+        /**
+         * The credit the class earns each turn.
+         */
+        private int weight = DEFAULT_WEIGHT;
+
+        /**
+         * The most elements of the class the queue holds.
+         */
+        private int capacity = DEFAULT_CAPACITY;
+
+        /**
+         * The credit the class has left.
+         */
+        private long deficit;
+
+        /**
+         * The cost of the front element, or 0 if it has not been worked out yet.
+         */
+        private int frontCost;
+
+        /**
+         * Whether the class has earned its credit for the current turn.
+         */
+        private boolean inTurn;
+
+        /**
+         * The number of elements ever added.
+         */
+        private long enqueued;
+
+        /**
+         * The number of elements ever removed.
+         */
+        private long dequeued;
+
+        /**
+         * The number of elements turned away at capacity.
+         */
+        private long rejected;
+    }
+}
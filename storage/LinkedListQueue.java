@@ -1,9 +1,15 @@
 package storage;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 /**
  * Queue Abstract Data Type (ADT) implemented using a Linked List.
@@ -123,13 +129,114 @@ public class LinkedListQueue<T> implements Cloneable, Iterable<T>
 
     @Override
     public String toString()
+    {
+        StringBuilder res = new StringBuilder();
+        try
+        {
+            writeTo(res);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return res.toString();
+    }
+
+    /**
+     * Writes the queue as text, from the back of the queue to the front,
+     * in the same form as toString, without building it as one string first.
+     * 
+     * @param out where to write the text
+     * @throws IOException if out throws one
+     */
+    public void writeTo(Appendable out) throws IOException
     {
         Iterator<T> it = data.descendingIterator();
-        String res = "<";
-        while(it.hasNext()) {
-            res += it.next() + ", ";
+        out.append('<');
+        while (it.hasNext())
+        {
+            out.append(String.valueOf(it.next()));
+            if (it.hasNext())
+            {
+                out.append(", ");
+            }
+        }
+        out.append('>');
+    }
+
+    /*
+     * The following methods save the queue as a binary snapshot and load it back.
+     * Elements are converted to bytes by an ElementCodec.
+     */
+
+    /**
+     * Writes a snapshot of the queue to a channel.
+     * 
+     * @param out the channel to write to
+     * @param codec converts each element to bytes
+     * @throws IOException if writing fails
+     */
+    public void writeSnapshot(WritableByteChannel out, ElementCodec<? super T> codec)
+        throws IOException
+    {
+        QueueSnapshots.write(this, size(), codec, out);
+    }
+
+    /**
+     * Writes a snapshot of the queue to a buffer.
+     * 
+     * @param out the buffer to write to
+     * @param codec converts each element to bytes
+     * @throws java.nio.BufferOverflowException if the snapshot does not fit in out
+     */
+    public void writeSnapshot(ByteBuffer out, ElementCodec<? super T> codec)
+    {
+        QueueSnapshots.write(this, size(), codec, out);
+    }
+
+    /**
+     * Creates a queue from a snapshot in a channel.
+     * 
+     * @param in the channel to read from
+     * @param codec converts bytes back to elements
+     * @return a queue with the elements of the snapshot
+     * @throws IOException if reading fails or in does not hold a snapshot
+     */
+    public static <T> LinkedListQueue<T> readSnapshot(ReadableByteChannel in, ElementCodec<T> codec)
+        throws IOException
+    {
+        return fromArray(QueueSnapshots.read(in, codec));
+    }
+
+    /**
+     * Creates a queue from a snapshot in a buffer.
+     * 
+     * @param in the buffer to read from
+     * @param codec converts bytes back to elements
+     * @return a queue with the elements of the snapshot
+     * @throws IOException if in does not hold a snapshot
+     */
+    public static <T> LinkedListQueue<T> readSnapshot(ByteBuffer in, ElementCodec<T> codec)
+        throws IOException
+    {
+        return fromArray(QueueSnapshots.read(in, codec));
+    }
+
+    /**
+     * Creates a queue holding the elements of an array, front first.
+     * 
+     * @param items the elements, front first
+     * @return a queue holding items
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> LinkedListQueue<T> fromArray(Object[] items)
+    {
+        LinkedListQueue<T> queue = new LinkedListQueue<>();
+        for (Object item : items)
+        {
+            queue.data.addLast((T) item);
         }
-        return res.substring(0, res.length() - 2) + ">";
+        return queue;
     }
 
     @Override
@@ -137,4 +244,17 @@ public class LinkedListQueue<T> implements Cloneable, Iterable<T>
     {
         return data.iterator();
     }
+
+    /**
+     * Creates a spliterator for parallel streams.
+     * LinkedList's own spliterator knows the size and splits off
+     * growing batches copied into arrays.
+     * 
+     * @return a sized spliterator over the queue from front to back
+     */
+    @Override
+    public Spliterator<T> spliterator()
+    {
+        return data.spliterator();
+    }
 }
@@ -0,0 +1,343 @@
+package storage;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The most recent long values in a stream, with their minimum, maximum, sum and count.
+ * 
+ * Works like SlidingWindow, but keeps everything in primitive ring buffers
+ * so no value is ever boxed. Events are numbered as they are added, and the
+ * min and max deques remember numbers rather than events, so an entry leaves
+ * a deque once its number falls behind the oldest event in the window.
+ * Adding an event is amortized O(1), and every aggregate is O(1).
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class LongSlidingWindow
+{
+    /**
+     * When each event in the window happened, oldest at the front.
+     */
+    private LongRing times;
+
+    /**
+     * The value of each event in the window, oldest at the front.
+     */
+    private LongRing values;
+
+    /**
+     * Numbers of the events that could still become the minimum.
+     */
+    private LongRing minNumbers;
+
+    /**
+     * Values of the events that could still become the minimum, in increasing order.
+     */
+    private LongRing minValues;
+
+    /**
+     * Numbers of the events that could still become the maximum.
+     */
+    private LongRing maxNumbers;
+
+    /**
+     * Values of the events that could still become the maximum, in decreasing order.
+     */
+    private LongRing maxValues;
+
+    /**
+     * The number of the oldest event in the window.
+     */
+    private long oldest;
+
+    /**
+     * The number the next event added will get.
+     */
+    private long next;
+
+    /**
+     * The sum of the values in the window.
+     */
+    private long sum;
+
+    /**
+     * The most events the window holds.
+     */
+    private final int maxCount;
+
+    /**
+     * How much older than the newest event an event can be and stay in the window.
+     */
+    private final long span;
+
+    /**
+     * Creates a new empty window bounded only by count.
+     * 
+     * @param maxCount the most events the window holds
+     */
+    public LongSlidingWindow(int maxCount)
+    {
+        this(maxCount, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new empty window bounded by count and by time.
+     * 
+     * @param maxCount the most events the window holds
+     * @param span events this much older than the newest are dropped,
+     *        in whatever unit the event times are in
+     */
+    public LongSlidingWindow(int maxCount, long span)
+    {
+        times = new LongRing();
+        values = new LongRing();
+        minNumbers = new LongRing();
+        minValues = new LongRing();
+        maxNumbers = new LongRing();
+        maxValues = new LongRing();
+        oldest = next = 0;
+        sum = 0;
+        this.maxCount = maxCount;
+        this.span = span;
+    }
+
+    /**
+     * Adds an event to the window and drops any events that fall out of it.
+     * 
+     * @param time when the event happened, no earlier than the last event added
+     * @param value the value of the event
+     */
+    public void add(long time, long value)
+    {
+        times.addRear(time);
+        values.addRear(value);
+        sum += value;
+        while (!minValues.isEmpty() && minValues.rear() > value)
+        {
+            minValues.removeRear();
+            minNumbers.removeRear();
+        }
+        minValues.addRear(value);
+        minNumbers.addRear(next);
+        while (!maxValues.isEmpty() && maxValues.rear() < value)
+        {
+            maxValues.removeRear();
+            maxNumbers.removeRear();
+        }
+        maxValues.addRear(value);
+        maxNumbers.addRear(next);
+        next++;
+        advanceTo(time);
+    }
+
+    /**
+     * Drops events too old to be in the window at the given time,
+     * for when time passes without new events.
+     * 
+     * @param now the current time
+     */
+    public void advanceTo(long now)
+    {
+        while (times.size() > maxCount || (!times.isEmpty() && now - times.front() >= span))
+        {
+            times.removeFront();
+            sum -= values.removeFront();
+            if (minNumbers.front() == oldest)
+            {
+                minNumbers.removeFront();
+                minValues.removeFront();
+            }
+            if (maxNumbers.front() == oldest)
+            {
+                maxNumbers.removeFront();
+                maxValues.removeFront();
+            }
+            oldest++;
+        }
+    }
+
+    /**
+     * Gets the smallest value in the window.
+     * 
+     * @return the smallest value in the window
+     * @throws NoSuchElementException if the window is empty
+     */
+    public long min()
+    {
+        return minValues.front();
+    }
+
+    /**
+     * Gets the largest value in the window.
+     * 
+     * @return the largest value in the window
+     * @throws NoSuchElementException if the window is empty
+     */
+    public long max()
+    {
+        return maxValues.front();
+    }
+
+    /**
+     * Gets the sum of the values in the window.
+     * 
+     * @return the sum, or 0 if the window is empty
+     */
+    public long sum()
+    {
+        return sum;
+    }
+
+    /**
+     * Getter for the number of events in the window.
+     * 
+     * @return the number of events in the window.
+     */
+    public int size()
+    {
+        return times.size();
+    }
+
+    /**
+     * Checks if the window is empty.
+     * 
+     * @return true if the window is empty, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return times.isEmpty();
+    }
+
+    /**
+     * A growable ring buffer of longs usable at both ends.
+     * The capacity is always a power of two, so wrapping is a mask rather than a modulo.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private static class LongRing
+    {
+        /**
+         * The items, starting at data[front] and wrapping around.
+         */
+        private long[] data;
+
+        /**
+         * The index of the front item.
+         */
+        private int front;
+
+        /**
+         * The number of items.
+         */
+        private int manyItems;
+
+        /**
+         * Creates a new empty ring.
+         */
+        public LongRing()
+        {
+            data = new long[16];
+            front = 0;
+            manyItems = 0;
+        }
+
+        /**
+         * Adds an item at the rear.
+         * 
+         * @param item the item to add
+         */
+        public void addRear(long item)
+        {
+            if (manyItems == data.length)
+            {
+                long[] newData = new long[data.length * 2];
+                for (int i = 0; i < manyItems; i++)
+                {
+                    newData[i] = data[(front + i) & (data.length - 1)];
+                }
+                data = newData;
+                front = 0;
+            }
+            data[(front + manyItems++) & (data.length - 1)] = item;
+        }
+
+        /**
+         * Gets the item at the front.
+         * 
+         * @return the item at the front
+         * @throws NoSuchElementException if the ring is empty
+         */
+        public long front()
+        {
+            if (isEmpty())
+            {
+                throw new NoSuchElementException();
+            }
+            return data[front];
+        }
+
+        /**
+         * Gets the item at the rear.
+         * 
+         * @return the item at the rear
+         * @throws NoSuchElementException if the ring is empty
+         */
+        public long rear()
+        {
+            if (isEmpty())
+            {
+                throw new NoSuchElementException();
+            }
+            return data[(front + manyItems - 1) & (data.length - 1)];
+        }
+
+        /**
+         * Removes the item at the front.
+         * 
+         * @return the item removed
+         * @throws NoSuchElementException if the ring is empty
+         */
+        public long removeFront()
+        {
+            long item = front();
+            front = (front + 1) & (data.length - 1);
+            manyItems--;
+            return item;
+        }
+
+        /**
+         * Removes the item at the rear.
+         * 
+         * @return the item removed
+         * @throws NoSuchElementException if the ring is empty
+         */
+        public long removeRear()
+        {
+            long item = rear();
+            manyItems--;
+            return item;
+        }
+
+        /**
+         * Checks if the ring is empty.
+         * 
+         * @return true if the ring is empty, false otherwise.
+         */
+        public boolean isEmpty()
+        {
+            return manyItems == 0;
+        }
+
+        /**
+         * Getter for the number of items in the ring.
+         * 
+         * @return the number of items in the ring.
+         */
+        public int size()
+        {
+            return manyItems;
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package storage;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * Queue Abstract Data Type (ADT) implemented using a Linked List.
@@ -55,6 +63,7 @@ public class ManualLinkedListQueue<T> implements Cloneable, Iterable<T>
         if (!input.isEmpty())
         {
             front = back = new Node(input.get(0));
+            manyItems = 1;
             for (int i = 1; i < input.size(); i++)
             {
                 back.setLink(new Node(input.get(i)));
@@ -144,6 +153,18 @@ public class ManualLinkedListQueue<T> implements Cloneable, Iterable<T>
         return new MLLQIterator(front);
     }
 
+    /**
+     * Creates a spliterator for parallel streams.
+     * The queue must not be modified while the spliterator is in use.
+     * 
+     * @return a sized spliterator over the queue from front to back
+     */
+    @Override
+    public Spliterator<T> spliterator()
+    {
+        return new MLLQSpliterator(front, manyItems);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public ManualLinkedListQueue<T> clone()
@@ -164,14 +185,121 @@ public class ManualLinkedListQueue<T> implements Cloneable, Iterable<T>
     @Override
     public String toString()
     {
-        String res = ">";
+        StringBuilder res = new StringBuilder();
+        try
+        {
+            writeTo(res);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return res.toString();
+    }
+
+    /**
+     * Writes the queue as text, from the back of the queue to the front,
+     * in the same form as toString, without building it as one string first.
+     * 
+     * @param out where to write the text
+     * @throws IOException if out throws one
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        // The list only links from front to back, so collect it to write it backwards.
+        Object[] items = new Object[manyItems];
+        int count = 0;
         for (Node i = front; i != null; i = i.getLink())
         {
-            res = i.getData() + (i == front ? res : ", " + res);
+            items[count++] = i.getData();
+        }
+        out.append('<');
+        for (int i = count - 1; i >= 0; i--)
+        {
+            out.append(String.valueOf(items[i]));
+            if (i > 0)
+            {
+                out.append(", ");
+            }
         }
-        return "<" + res;
+        out.append('>');
     }
-    
+
+    /*
+     * The following methods save the queue as a binary snapshot and load it back.
+     * Elements are converted to bytes by an ElementCodec.
+     */
+
+    /**
+     * Writes a snapshot of the queue to a channel.
+     * 
+     * @param out the channel to write to
+     * @param codec converts each element to bytes
+     * @throws IOException if writing fails
+     */
+    public void writeSnapshot(WritableByteChannel out, ElementCodec<? super T> codec)
+        throws IOException
+    {
+        QueueSnapshots.write(this, size(), codec, out);
+    }
+
+    /**
+     * Writes a snapshot of the queue to a buffer.
+     * 
+     * @param out the buffer to write to
+     * @param codec converts each element to bytes
+     * @throws java.nio.BufferOverflowException if the snapshot does not fit in out
+     */
+    public void writeSnapshot(ByteBuffer out, ElementCodec<? super T> codec)
+    {
+        QueueSnapshots.write(this, size(), codec, out);
+    }
+
+    /**
+     * Creates a queue from a snapshot in a channel.
+     * 
+     * @param in the channel to read from
+     * @param codec converts bytes back to elements
+     * @return a queue with the elements of the snapshot
+     * @throws IOException if reading fails or in does not hold a snapshot
+     */
+    public static <T> ManualLinkedListQueue<T> readSnapshot(ReadableByteChannel in,
+        ElementCodec<T> codec) throws IOException
+    {
+        return fromArray(QueueSnapshots.read(in, codec));
+    }
+
+    /**
+     * Creates a queue from a snapshot in a buffer.
+     * 
+     * @param in the buffer to read from
+     * @param codec converts bytes back to elements
+     * @return a queue with the elements of the snapshot
+     * @throws IOException if in does not hold a snapshot
+     */
+    public static <T> ManualLinkedListQueue<T> readSnapshot(ByteBuffer in, ElementCodec<T> codec)
+        throws IOException
+    {
+        return fromArray(QueueSnapshots.read(in, codec));
+    }
+
+    /**
+     * Creates a queue holding the elements of an array, front first.
+     * 
+     * @param items the elements, front first
+     * @return a queue holding items
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ManualLinkedListQueue<T> fromArray(Object[] items)
+    {
+        ManualLinkedListQueue<T> queue = new ManualLinkedListQueue<>();
+        for (Object item : items)
+        {
+            queue.enqueue((T) item);
+        }
+        return queue;
+    }
+
     /**
      * A simple, generic node class.
      * 
@@ -308,4 +436,107 @@ public class ManualLinkedListQueue<T> implements Cloneable, Iterable<T>
             return retValue;
         }
     }
+
+    /**
+     * Spliterator that walks the nodes and splits off batches.
+     * A list cannot be split in the middle without walking to it, so each split
+     * copies the next batch of items into an array, which can then be split by
+     * index. Batches grow each time, so long lists do not split into tiny pieces.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private class MLLQSpliterator implements Spliterator<T>
+    {
+        /**
+         * How many more items each batch takes than the one before.
+         */
+        private static final int BATCH_UNIT = 1 << 10;
+
+        /**
+         * The most items a batch takes.
+         */
+        private static final int MAX_BATCH = 1 << 25;
+
+        /**
+         * The node containing the next data to return.
+         */
+        private Node next;
+
+        /**
+         * The number of items left to return.
+         */
+        private int remaining;
+
+        /**
+         * The size of the last batch split off.
+         */
+        private int batch;
+
+        /**
+         * Creates a new spliterator beginning at the provided node.
+         * 
+         * @param start the first node to return
+         * @param remaining the number of items from start to the end
+         */
+        public MLLQSpliterator(Node start, int remaining)
+        {
+            this.next = start;
+            this.remaining = remaining;
+            this.batch = 0;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            if (remaining <= 0)
+            {
+                return false;
+            }
+            action.accept(next.getData());
+            next = next.getLink();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action)
+        {
+            for (Node n = next; remaining > 0; n = n.getLink(), remaining--)
+            {
+                action.accept(n.getData());
+            }
+            next = null;
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            if (remaining <= 1)
+            {
+                return null;
+            }
+            batch = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+            Object[] items = new Object[batch];
+            for (int i = 0; i < batch; i++)
+            {
+                items[i] = next.getData();
+                next = next.getLink();
+            }
+            remaining -= batch;
+            return Spliterators.spliterator(items, 0, batch, characteristics());
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
 }
@@ -0,0 +1,227 @@
+package storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the binary snapshots the queues save themselves as.
+ * 
+ * A snapshot is a 4 byte marker, the number of elements as 4 bytes,
+ * then each element from front to back as written by an ElementCodec.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+final class QueueSnapshots
+{
+    /**
+     * Marks the start of every snapshot, so other data is not mistaken for one.
+     */
+    private static final int MAGIC = 0x51534E50;
+
+    /**
+     * The size of the buffer used between a snapshot and a channel.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Don't make these!
+     */
+    private QueueSnapshots() {}
+
+    /**
+     * Writes a snapshot to a buffer.
+     * 
+     * @param items the elements from front to back
+     * @param count the number of elements
+     * @param codec writes each element
+     * @param out the buffer to write to
+     * @throws java.nio.BufferOverflowException if the snapshot does not fit in out
+     */
+    static <T> void write(Iterable<T> items, int count, ElementCodec<? super T> codec,
+        ByteBuffer out)
+    {
+        out.putInt(MAGIC).putInt(count);
+        for (T item : items)
+        {
+            codec.encode(item, out);
+        }
+    }
+
+    /**
+     * Writes a snapshot to a channel through a buffer.
+     * 
+     * @param items the elements from front to back
+     * @param count the number of elements
+     * @param codec writes each element
+     * @param out the channel to write to
+     * @throws IOException if writing fails
+     */
+    static <T> void write(Iterable<T> items, int count, ElementCodec<? super T> codec,
+        WritableByteChannel out) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.putInt(MAGIC).putInt(count);
+        for (T item : items)
+        {
+            int size = codec.maxSize(item);
+            if (buffer.remaining() < size)
+            {
+                drain(buffer, out);
+                if (buffer.capacity() < size)
+                {
+                    buffer = ByteBuffer.allocate(size);
+                }
+            }
+            codec.encode(item, buffer);
+        }
+        drain(buffer, out);
+    }
+
+    /**
+     * Reads a snapshot from a buffer.
+     * 
+     * @param in the buffer to read from
+     * @param codec reads each element
+     * @return the elements from front to back, in an array exactly as long as needed
+     * @throws IOException if in does not hold a snapshot
+     */
+    static Object[] read(ByteBuffer in, ElementCodec<?> codec) throws IOException
+    {
+        try
+        {
+            int count = readHeader(in);
+            // Every element takes at least a byte, so a larger count is corrupt
+            // and must not be allocated for.
+            if (count > in.remaining())
+            {
+                throw new EOFException("Snapshot is cut short");
+            }
+            Object[] items = new Object[count];
+            for (int i = 0; i < items.length; i++)
+            {
+                items[i] = codec.decode(in);
+            }
+            return items;
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new EOFException("Snapshot is cut short");
+        }
+    }
+
+    /**
+     * Reads a snapshot from a channel through a buffer.
+     * Elements are decoded straight from the buffer; one that runs past the end
+     * of what has been read so far is decoded again once more is read.
+     * The array grows as elements are decoded, so a corrupt count cannot
+     * allocate much more than the snapshot holds.
+     * 
+     * @param in the channel to read from
+     * @param codec reads each element
+     * @return the elements from front to back, in an array exactly as long as needed
+     * @throws IOException if reading fails or in does not hold a snapshot
+     */
+    static Object[] read(ReadableByteChannel in, ElementCodec<?> codec) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.limit(0);
+        while (buffer.remaining() < 2 * Integer.BYTES)
+        {
+            buffer = fill(buffer, in);
+        }
+        int count = readHeader(buffer);
+        Object[] items = new Object[Math.min(count, Math.max(1, buffer.remaining()))];
+        for (int i = 0; i < count; )
+        {
+            int start = buffer.position();
+            try
+            {
+                Object item = codec.decode(buffer);
+                if (i == items.length)
+                {
+                    items = Arrays.copyOf(items, (int) Math.min(count, 2L * i));
+                }
+                items[i++] = item;
+            }
+            catch (BufferUnderflowException e)
+            {
+                buffer.position(start);
+                buffer = fill(buffer, in);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Reads and checks the start of a snapshot.
+     * 
+     * @param in the buffer to read from
+     * @return the number of elements in the snapshot
+     * @throws IOException if in does not hold a snapshot
+     */
+    private static int readHeader(ByteBuffer in) throws IOException
+    {
+        if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC)
+        {
+            throw new IOException("Not a queue snapshot");
+        }
+        int count = in.getInt();
+        if (count < 0)
+        {
+            throw new IOException("Not a queue snapshot");
+        }
+        return count;
+    }
+
+    /**
+     * Writes everything in a buffer to a channel and clears the buffer for writing.
+     * 
+     * @param buffer the buffer, ready for writing to
+     * @param out the channel to write to
+     * @throws IOException if writing fails
+     */
+    private static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads more from a channel into the unread part of a buffer,
+     * doubling the buffer if it is already full.
+     * 
+     * @param buffer the buffer, ready for reading from
+     * @param in the channel to read from
+     * @return the buffer, or a larger one, ready for reading from
+     * @throws IOException if reading fails or the channel has ended
+     */
+    private static ByteBuffer fill(ByteBuffer buffer, ReadableByteChannel in) throws IOException
+    {
+        if (buffer.position() == 0 && buffer.limit() == buffer.capacity())
+        {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(buffer);
+            buffer = larger;
+        }
+        else
+        {
+            buffer.compact();
+        }
+        if (in.read(buffer) < 0)
+        {
+            throw new EOFException("Snapshot is cut short");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,204 @@
+package storage;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * The most recent events in a stream, with their minimum and maximum.
+ * 
+ * The window holds at most maxCount events, and only events less than span
+ * time units older than the newest. Min and max are kept with monotonic deques:
+ * each new event removes every event from the rear of the min deque that is
+ * larger than it, since those can never be the minimum again, and likewise for
+ * max. Every event enters and leaves each deque at most once, so adding an
+ * event is amortized O(1) no matter how big the window is.
+ * 
+ * For long values without boxing, and for sums, see LongSlidingWindow.
+ * 
+ * @author Willow Sapphire
+ * @version 04/05/2024
+ */
+public class SlidingWindow<T>
+{
+    /**
+     * Every event in the window, oldest at the front.
+     */
+    private ArrayQueue<Event<T>> events;
+
+    /**
+     * Events that could still become the minimum, in increasing order.
+     * The front is the current minimum.
+     */
+    private ArrayQueue<Event<T>> mins;
+
+    /**
+     * Events that could still become the maximum, in decreasing order.
+     * The front is the current maximum.
+     */
+    private ArrayQueue<Event<T>> maxes;
+
+    /**
+     * Orders the values for min and max.
+     */
+    private final Comparator<? super T> comparator;
+
+    /**
+     * The most events the window holds.
+     */
+    private final int maxCount;
+
+    /**
+     * How much older than the newest event an event can be and stay in the window.
+     */
+    private final long span;
+
+    /**
+     * Creates a new empty window bounded only by count.
+     * 
+     * @param maxCount the most events the window holds
+     * @param comparator orders the values for min and max
+     */
+    public SlidingWindow(int maxCount, Comparator<? super T> comparator)
+    {
+        this(maxCount, Long.MAX_VALUE, comparator);
+    }
+
+    /**
+     * Creates a new empty window bounded by count and by time.
+     * 
+     * @param maxCount the most events the window holds
+     * @param span events this much older than the newest are dropped,
+     *        in whatever unit the event times are in
+     * @param comparator orders the values for min and max
+     */
+    public SlidingWindow(int maxCount, long span, Comparator<? super T> comparator)
+    {
+        events = new ArrayQueue<>();
+        mins = new ArrayQueue<>();
+        maxes = new ArrayQueue<>();
+        this.comparator = comparator;
+        this.maxCount = maxCount;
+        this.span = span;
+    }
+
+    /**
+     * Adds an event to the window and drops any events that fall out of it.
+     * 
+     * @param time when the event happened, no earlier than the last event added
+     * @param value the value of the event
+     */
+    public void add(long time, T value)
+    {
+        Event<T> event = new Event<>(time, value);
+        events.enqueue(event);
+        while (!mins.isEmpty() && comparator.compare(mins.examineRear().value, value) > 0)
+        {
+            mins.dequeueRear();
+        }
+        mins.enqueue(event);
+        while (!maxes.isEmpty() && comparator.compare(maxes.examineRear().value, value) < 0)
+        {
+            maxes.dequeueRear();
+        }
+        maxes.enqueue(event);
+        advanceTo(time);
+    }
+
+    /**
+     * Drops events too old to be in the window at the given time,
+     * for when time passes without new events.
+     * 
+     * @param now the current time
+     */
+    public void advanceTo(long now)
+    {
+        while (events.size() > maxCount
+            || (!events.isEmpty() && now - events.examine().time >= span))
+        {
+            Event<T> oldest = events.dequeue();
+            if (mins.examine() == oldest)
+            {
+                mins.dequeue();
+            }
+            if (maxes.examine() == oldest)
+            {
+                maxes.dequeue();
+            }
+        }
+    }
+
+    /**
+     * Gets the smallest value in the window.
+     * 
+     * @return the smallest value in the window
+     * @throws NoSuchElementException if the window is empty
+     */
+    public T min()
+    {
+        return mins.examine().value;
+    }
+
+    /**
+     * Gets the largest value in the window.
+     * 
+     * @return the largest value in the window
+     * @throws NoSuchElementException if the window is empty
+     */
+    public T max()
+    {
+        return maxes.examine().value;
+    }
+
+    /**
+     * Getter for the number of events in the window.
+     * 
+     * @return the number of events in the window.
+     */
+    public int size()
+    {
+        return events.size();
+    }
+
+    /**
+     * Checks if the window is empty.
+     * 
+     * @return true if the window is empty, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return events.isEmpty();
+    }
+
+    /**
+     * One value and when it happened.
+     * Events are compared by identity when they leave the window,
+     * so equal values are never confused.
+     * 
+     * @author Willow Sapphire
+     * @version 04/05/2024
+     */
+    private static class Event<T>
+    {
+        /**
+         * When the event happened.
+         */
+        private final long time;
+
+        /**
+         * The value of the event.
+         */
+        private final T value;
+
+        /**
+         * Creates a new event.
+         * 
+         * @param time when the event happened
+         * @param value the value of the event
+         */
+        public Event(long time, T value)
+        {
+            this.time = time;
+            this.value = value;
+        }
+    }
+}